@@ -19,7 +19,11 @@
 package org.apache.fineract.cn.rhythm.api.v1.client;
 
 import org.apache.fineract.cn.rhythm.api.v1.domain.Beat;
+import org.apache.fineract.cn.rhythm.api.v1.domain.BeatBatch;
+import org.apache.fineract.cn.rhythm.api.v1.domain.BeatDeletionBatch;
+import org.apache.fineract.cn.rhythm.api.v1.domain.CircuitBreaker;
 import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.apache.fineract.cn.rhythm.api.v1.domain.Timer;
 import java.util.List;
 import org.apache.fineract.cn.api.util.CustomFeignClientsConfiguration;
 import org.springframework.cloud.netflix.feign.FeignClient;
@@ -91,4 +95,54 @@ public interface RhythmManager {
           consumes = MediaType.ALL_VALUE
   )
   void deleteBeat(@PathVariable("applicationidentifier") final String applicationIdentifier, @PathVariable("beatidentifier") final String beatIdentifier);
+
+  @RequestMapping(
+          value = "/applications/{applicationidentifier}/beats/batch",
+          method = RequestMethod.POST,
+          produces = MediaType.APPLICATION_JSON_VALUE,
+          consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  void createBeats(@PathVariable("applicationidentifier") final String applicationIdentifier, final BeatBatch beatBatch);
+
+  @RequestMapping(
+          value = "/applications/{applicationidentifier}/beats/batch/deletion",
+          method = RequestMethod.POST,
+          produces = MediaType.APPLICATION_JSON_VALUE,
+          consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  void deleteBeats(@PathVariable("applicationidentifier") final String applicationIdentifier, final BeatDeletionBatch beatDeletionBatch);
+
+  @RequestMapping(
+          value = "/applications/{applicationidentifier}/timers",
+          method = RequestMethod.POST,
+          produces = MediaType.APPLICATION_JSON_VALUE,
+          consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  void createTimer(@PathVariable("applicationidentifier") final String applicationIdentifier, final Timer timer);
+
+  @RequestMapping(
+          value = "/applications/{applicationidentifier}/timers/{timeridentifier}",
+          method = RequestMethod.GET,
+          produces = MediaType.APPLICATION_JSON_VALUE,
+          consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  Timer getTimer(
+          @PathVariable("applicationidentifier") final String applicationIdentifier,
+          @PathVariable("timeridentifier") final String timerIdentifier);
+
+  @RequestMapping(
+          value = "/applications/{applicationidentifier}/timers/{timeridentifier}",
+          method = RequestMethod.DELETE,
+          produces = MediaType.ALL_VALUE,
+          consumes = MediaType.ALL_VALUE
+  )
+  void deleteTimer(@PathVariable("applicationidentifier") final String applicationIdentifier, @PathVariable("timeridentifier") final String timerIdentifier);
+
+  @RequestMapping(
+          value = "/circuitbreakers",
+          method = RequestMethod.GET,
+          produces = MediaType.ALL_VALUE,
+          consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  List<CircuitBreaker> getCircuitBreakers();
 }
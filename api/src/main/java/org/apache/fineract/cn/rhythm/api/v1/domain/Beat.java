@@ -19,6 +19,7 @@
 package org.apache.fineract.cn.rhythm.api.v1.domain;
 
 import org.apache.fineract.cn.lang.validation.constraints.ValidIdentifier;
+import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.Range;
 
 /**
@@ -26,12 +27,54 @@ import org.hibernate.validator.constraints.Range;
  */
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class Beat {
+  /**
+   * What to publish when beats were missed, for example because rhythm was down.  Missed beats are always
+   * published oldest first.
+   */
+  public enum CatchUpPolicy {
+    /**
+     * Publish every missed beat.  This is the default.  A beat with a period or a cron expression publishes at most
+     * its 366 most recent missed beats.
+     */
+    FIRE_ALL,
+    /** Publish only the most recent missed beat. */
+    FIRE_LATEST_ONLY,
+    /** Publish the most recent catchUpLimit missed beats.  A beat with this policy must have a catchUpLimit. */
+    FIRE_LAST_N
+  }
+
   @ValidIdentifier
   private String identifier;
 
   @Range(min = 0, max = 23)
   private Integer alignmentHour;
 
+  private CatchUpPolicy catchUpPolicy;
+
+  @Range(min = 1, max = 366)
+  private Integer catchUpLimit;
+
+  /**
+   * Fire every periodMinutes, starting at the alignment hour, instead of once a day.  Must divide a day evenly.
+   */
+  @Range(min = 1, max = 1440)
+  private Integer periodMinutes;
+
+  /**
+   * Fire at the times matching this five field cron expression, instead of once a day at the alignment hour.  The
+   * expression is evaluated in the tenant's time, as set by the clock offset.
+   */
+  @Length(max = 64)
+  private String cronExpression;
+
+  /**
+   * Fire at a fixed offset of up to spreadSeconds after each scheduled time, so that beats scheduled for the same time
+   * don't all fire at once.  The offset is derived from the tenant and the beat identifier, so a beat always fires at
+   * the same offset.  If not set, the application's spread window is used.
+   */
+  @Range(min = 0, max = 86_399)
+  private Integer spreadSeconds;
+
   public Beat() {
   }
 
@@ -60,6 +103,46 @@ public class Beat {
     this.alignmentHour = alignmentHour;
   }
 
+  public CatchUpPolicy getCatchUpPolicy() {
+    return catchUpPolicy;
+  }
+
+  public void setCatchUpPolicy(CatchUpPolicy catchUpPolicy) {
+    this.catchUpPolicy = catchUpPolicy;
+  }
+
+  public Integer getCatchUpLimit() {
+    return catchUpLimit;
+  }
+
+  public void setCatchUpLimit(Integer catchUpLimit) {
+    this.catchUpLimit = catchUpLimit;
+  }
+
+  public Integer getPeriodMinutes() {
+    return periodMinutes;
+  }
+
+  public void setPeriodMinutes(Integer periodMinutes) {
+    this.periodMinutes = periodMinutes;
+  }
+
+  public String getCronExpression() {
+    return cronExpression;
+  }
+
+  public void setCronExpression(String cronExpression) {
+    this.cronExpression = cronExpression;
+  }
+
+  public Integer getSpreadSeconds() {
+    return spreadSeconds;
+  }
+
+  public void setSpreadSeconds(Integer spreadSeconds) {
+    this.spreadSeconds = spreadSeconds;
+  }
+
   @SuppressWarnings("SimplifiableIfStatement")
   @Override
   public boolean equals(Object o) {
@@ -69,7 +152,12 @@ public class Beat {
     Beat beat = (Beat) o;
 
     if (identifier != null ? !identifier.equals(beat.identifier) : beat.identifier != null) return false;
-    return alignmentHour != null ? alignmentHour.equals(beat.alignmentHour) : beat.alignmentHour == null;
+    if (alignmentHour != null ? !alignmentHour.equals(beat.alignmentHour) : beat.alignmentHour != null) return false;
+    if (catchUpPolicy != beat.catchUpPolicy) return false;
+    if (catchUpLimit != null ? !catchUpLimit.equals(beat.catchUpLimit) : beat.catchUpLimit != null) return false;
+    if (periodMinutes != null ? !periodMinutes.equals(beat.periodMinutes) : beat.periodMinutes != null) return false;
+    if (cronExpression != null ? !cronExpression.equals(beat.cronExpression) : beat.cronExpression != null) return false;
+    return spreadSeconds != null ? spreadSeconds.equals(beat.spreadSeconds) : beat.spreadSeconds == null;
 
   }
 
@@ -77,6 +165,11 @@ public class Beat {
   public int hashCode() {
     int result = identifier != null ? identifier.hashCode() : 0;
     result = 31 * result + (alignmentHour != null ? alignmentHour.hashCode() : 0);
+    result = 31 * result + (catchUpPolicy != null ? catchUpPolicy.hashCode() : 0);
+    result = 31 * result + (catchUpLimit != null ? catchUpLimit.hashCode() : 0);
+    result = 31 * result + (periodMinutes != null ? periodMinutes.hashCode() : 0);
+    result = 31 * result + (cronExpression != null ? cronExpression.hashCode() : 0);
+    result = 31 * result + (spreadSeconds != null ? spreadSeconds.hashCode() : 0);
     return result;
   }
 
@@ -85,6 +178,11 @@ public class Beat {
     return "Beat{" +
             "identifier='" + identifier + '\'' +
             ", alignmentHour=" + alignmentHour +
+            ", catchUpPolicy=" + catchUpPolicy +
+            ", catchUpLimit=" + catchUpLimit +
+            ", periodMinutes=" + periodMinutes +
+            ", cronExpression='" + cronExpression + '\'' +
+            ", spreadSeconds=" + spreadSeconds +
             '}';
   }
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.domain;
+
+import java.util.List;
+import java.util.Objects;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Beats to create for an application in one request.  Beats which already exist are replaced, unless they are the
+ * same as before, in which case they are left as they are and keep their next beat.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class BeatBatch {
+  /**
+   * The tenants to create the beats for.  Applications create beats with a token for one tenant, so only the tenant
+   * of the request may be named.  If not set, the beats are created for the tenant of the request.
+   */
+  @Size(max = 10_000)
+  private List<String> tenantIdentifiers;
+
+  @NotNull
+  @Size(min = 1, max = 1_000)
+  @Valid
+  private List<Beat> beats;
+
+  public BeatBatch() {
+  }
+
+  public BeatBatch(List<String> tenantIdentifiers, List<Beat> beats) {
+    this.tenantIdentifiers = tenantIdentifiers;
+    this.beats = beats;
+  }
+
+  public List<String> getTenantIdentifiers() {
+    return tenantIdentifiers;
+  }
+
+  public void setTenantIdentifiers(List<String> tenantIdentifiers) {
+    this.tenantIdentifiers = tenantIdentifiers;
+  }
+
+  public List<Beat> getBeats() {
+    return beats;
+  }
+
+  public void setBeats(List<Beat> beats) {
+    this.beats = beats;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BeatBatch beatBatch = (BeatBatch) o;
+    return Objects.equals(tenantIdentifiers, beatBatch.tenantIdentifiers) &&
+            Objects.equals(beats, beatBatch.beats);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(tenantIdentifiers, beats);
+  }
+
+  @Override
+  public String toString() {
+    return "BeatBatch{" +
+            "tenantIdentifiers=" + tenantIdentifiers +
+            ", beats=" + beats +
+            '}';
+  }
+}
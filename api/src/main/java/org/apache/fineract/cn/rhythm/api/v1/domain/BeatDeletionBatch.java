@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.domain;
+
+import java.util.List;
+import java.util.Objects;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Beats to delete from an application in one request.  Each beat is deleted for each of the tenants.  Beats which
+ * don't exist are skipped.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class BeatDeletionBatch {
+  /**
+   * The tenants to delete the beats for.  If not set, the beats are deleted for the tenant of the request.
+   */
+  @Size(max = 10_000)
+  private List<String> tenantIdentifiers;
+
+  @NotNull
+  @Size(min = 1, max = 1_000)
+  private List<String> beatIdentifiers;
+
+  public BeatDeletionBatch() {
+  }
+
+  public BeatDeletionBatch(List<String> tenantIdentifiers, List<String> beatIdentifiers) {
+    this.tenantIdentifiers = tenantIdentifiers;
+    this.beatIdentifiers = beatIdentifiers;
+  }
+
+  public List<String> getTenantIdentifiers() {
+    return tenantIdentifiers;
+  }
+
+  public void setTenantIdentifiers(List<String> tenantIdentifiers) {
+    this.tenantIdentifiers = tenantIdentifiers;
+  }
+
+  public List<String> getBeatIdentifiers() {
+    return beatIdentifiers;
+  }
+
+  public void setBeatIdentifiers(List<String> beatIdentifiers) {
+    this.beatIdentifiers = beatIdentifiers;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BeatDeletionBatch that = (BeatDeletionBatch) o;
+    return Objects.equals(tenantIdentifiers, that.tenantIdentifiers) &&
+            Objects.equals(beatIdentifiers, that.beatIdentifiers);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(tenantIdentifiers, beatIdentifiers);
+  }
+
+  @Override
+  public String toString() {
+    return "BeatDeletionBatch{" +
+            "tenantIdentifiers=" + tenantIdentifiers +
+            ", beatIdentifiers=" + beatIdentifiers +
+            '}';
+  }
+}
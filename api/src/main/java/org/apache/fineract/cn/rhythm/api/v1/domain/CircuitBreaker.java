@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.domain;
+
+import java.util.Objects;
+
+/**
+ * The state of publishing beats to one application.  While the breaker is open, beats for the application are
+ * deferred without being sent.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class CircuitBreaker {
+  public enum State {
+    /**
+     * Beats are published.
+     */
+    CLOSED,
+    /**
+     * Publishing failed repeatedly.  Beats are deferred until retryAt.
+     */
+    OPEN,
+    /**
+     * A few beats are published to find out whether the application is back.
+     */
+    HALF_OPEN
+  }
+
+  private String applicationIdentifier;
+  private State state;
+  private Integer consecutiveFailures;
+  private String retryAt;
+
+  public CircuitBreaker() {
+  }
+
+  public CircuitBreaker(String applicationIdentifier, State state, Integer consecutiveFailures, String retryAt) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.state = state;
+    this.consecutiveFailures = consecutiveFailures;
+    this.retryAt = retryAt;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public void setApplicationIdentifier(String applicationIdentifier) {
+    this.applicationIdentifier = applicationIdentifier;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public void setState(State state) {
+    this.state = state;
+  }
+
+  public Integer getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  public void setConsecutiveFailures(Integer consecutiveFailures) {
+    this.consecutiveFailures = consecutiveFailures;
+  }
+
+  public String getRetryAt() {
+    return retryAt;
+  }
+
+  public void setRetryAt(String retryAt) {
+    this.retryAt = retryAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    CircuitBreaker that = (CircuitBreaker) o;
+    return Objects.equals(applicationIdentifier, that.applicationIdentifier) &&
+        state == that.state &&
+        Objects.equals(consecutiveFailures, that.consecutiveFailures) &&
+        Objects.equals(retryAt, that.retryAt);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(applicationIdentifier, state, consecutiveFailures, retryAt);
+  }
+
+  @Override
+  public String toString() {
+    return "CircuitBreaker{" +
+        "applicationIdentifier='" + applicationIdentifier + '\'' +
+        ", state=" + state +
+        ", consecutiveFailures=" + consecutiveFailures +
+        ", retryAt='" + retryAt + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.domain;
+
+import java.util.Objects;
+import javax.validation.constraints.NotNull;
+import org.apache.fineract.cn.lang.validation.constraints.ValidIdentifier;
+import org.apache.fineract.cn.lang.validation.constraints.ValidLocalDateTimeString;
+
+/**
+ * A beat which is published once, at fireAt, and then deleted.  Creating a timer which already exists moves it to
+ * the new time.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class Timer {
+  @ValidIdentifier
+  private String identifier;
+
+  /**
+   * When to publish the timer, as an ISO local date time in UTC.  A time in the past is published immediately.
+   */
+  @NotNull
+  @ValidLocalDateTimeString
+  private String fireAt;
+
+  public Timer() {
+  }
+
+  public Timer(String identifier, String fireAt) {
+    this.identifier = identifier;
+    this.fireAt = fireAt;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public void setIdentifier(String identifier) {
+    this.identifier = identifier;
+  }
+
+  public String getFireAt() {
+    return fireAt;
+  }
+
+  public void setFireAt(String fireAt) {
+    this.fireAt = fireAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Timer timer = (Timer) o;
+    return Objects.equals(identifier, timer.identifier) &&
+            Objects.equals(fireAt, timer.fireAt);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(identifier, fireAt);
+  }
+
+  @Override
+  public String toString() {
+    return "Timer{" +
+            "identifier='" + identifier + '\'' +
+            ", fireAt='" + fireAt + '\'' +
+            '}';
+  }
+}
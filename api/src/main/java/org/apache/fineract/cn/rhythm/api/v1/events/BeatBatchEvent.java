@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.events;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sent once for a whole batch of beats, in place of a beat event per beat and tenant.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class BeatBatchEvent {
+  private String applicationIdentifier;
+  private List<String> tenantIdentifiers;
+  private List<String> beatIdentifiers;
+
+  public BeatBatchEvent() {
+  }
+
+  public BeatBatchEvent(String applicationIdentifier, List<String> tenantIdentifiers, List<String> beatIdentifiers) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.tenantIdentifiers = tenantIdentifiers;
+    this.beatIdentifiers = beatIdentifiers;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public void setApplicationIdentifier(String applicationIdentifier) {
+    this.applicationIdentifier = applicationIdentifier;
+  }
+
+  public List<String> getTenantIdentifiers() {
+    return tenantIdentifiers;
+  }
+
+  public void setTenantIdentifiers(List<String> tenantIdentifiers) {
+    this.tenantIdentifiers = tenantIdentifiers;
+  }
+
+  public List<String> getBeatIdentifiers() {
+    return beatIdentifiers;
+  }
+
+  public void setBeatIdentifiers(List<String> beatIdentifiers) {
+    this.beatIdentifiers = beatIdentifiers;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BeatBatchEvent that = (BeatBatchEvent) o;
+    return Objects.equals(applicationIdentifier, that.applicationIdentifier) &&
+            Objects.equals(tenantIdentifiers, that.tenantIdentifiers) &&
+            Objects.equals(beatIdentifiers, that.beatIdentifiers);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(applicationIdentifier, tenantIdentifiers, beatIdentifiers);
+  }
+
+  @Override
+  public String toString() {
+    return "BeatBatchEvent{" +
+            "applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", tenantIdentifiers=" + tenantIdentifiers +
+            ", beatIdentifiers=" + beatIdentifiers +
+            '}';
+  }
+}
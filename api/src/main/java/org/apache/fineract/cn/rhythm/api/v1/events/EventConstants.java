@@ -31,9 +31,17 @@ public interface EventConstants {
   String DELETE_APPLICATION = "delete-application";
   String DELETE_BEAT = "delete-beat";
   String PUT_CLOCKOFFSET = "put-clockoffset";
+  String POST_TIMER = "post-timer";
+  String DELETE_TIMER = "delete-timer";
+  String POST_BEATS = "post-beats";
+  String DELETE_BEATS = "delete-beats";
   String SELECTOR_INITIALIZE = SELECTOR_NAME + " = '" + INITIALIZE + "'";
   String SELECTOR_POST_BEAT = SELECTOR_NAME + " = '" + POST_BEAT + "'";
   String SELECTOR_DELETE_APPLICATION = SELECTOR_NAME + " = '" + DELETE_APPLICATION + "'";
   String SELECTOR_DELETE_BEAT = SELECTOR_NAME + " = '" + DELETE_BEAT + "'";
   String SELECTOR_PUT_CLOCKOFFSET = SELECTOR_NAME + " = '" + PUT_CLOCKOFFSET + "'";
+  String SELECTOR_POST_TIMER = SELECTOR_NAME + " = '" + POST_TIMER + "'";
+  String SELECTOR_DELETE_TIMER = SELECTOR_NAME + " = '" + DELETE_TIMER + "'";
+  String SELECTOR_POST_BEATS = SELECTOR_NAME + " = '" + POST_BEATS + "'";
+  String SELECTOR_DELETE_BEATS = SELECTOR_NAME + " = '" + DELETE_BEATS + "'";
 }
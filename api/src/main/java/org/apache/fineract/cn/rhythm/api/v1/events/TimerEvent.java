@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.events;
+
+import java.util.Objects;
+
+/**
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class TimerEvent {
+  private String applicationIdentifier;
+  private String timerIdentifier;
+
+  public TimerEvent() {
+  }
+
+  public TimerEvent(String applicationIdentifier, String timerIdentifier) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.timerIdentifier = timerIdentifier;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public void setApplicationIdentifier(String applicationIdentifier) {
+    this.applicationIdentifier = applicationIdentifier;
+  }
+
+  public String getTimerIdentifier() {
+    return timerIdentifier;
+  }
+
+  public void setTimerIdentifier(String timerIdentifier) {
+    this.timerIdentifier = timerIdentifier;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    TimerEvent timerEvent = (TimerEvent) o;
+    return Objects.equals(applicationIdentifier, timerEvent.applicationIdentifier) &&
+            Objects.equals(timerIdentifier, timerEvent.timerIdentifier);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(applicationIdentifier, timerIdentifier);
+  }
+
+  @Override
+  public String toString() {
+    return "TimerEvent{" +
+            "applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", timerIdentifier='" + timerIdentifier + '\'' +
+            '}';
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.api.v1.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import org.apache.fineract.cn.test.domain.ValidationTest;
+import org.apache.fineract.cn.test.domain.ValidationTestCase;
+import org.junit.runners.Parameterized;
+
+/**
+ * @author Myrle Krantz
+ */
+public class BeatBatchTest extends ValidationTest<BeatBatch> {
+  public BeatBatchTest(final ValidationTestCase<BeatBatch> testCase) {
+    super(testCase);
+  }
+
+  @Override
+  protected BeatBatch createValidTestSubject() {
+    return new BeatBatch(null, Collections.singletonList(new Beat("identifier", 0)));
+  }
+
+  @Parameterized.Parameters
+  public static Collection testCases() {
+    final Collection<ValidationTestCase> ret = new ArrayList<>();
+    ret.add(new ValidationTestCase<BeatBatch>("basicCase")
+        .adjustment(x -> {})
+        .valid(true));
+    ret.add(new ValidationTestCase<BeatBatch>("withTenants")
+        .adjustment(x -> x.setTenantIdentifiers(Collections.singletonList("tenant")))
+        .valid(true));
+    ret.add(new ValidationTestCase<BeatBatch>("nullBeats")
+        .adjustment(x -> x.setBeats(null))
+        .valid(false));
+    ret.add(new ValidationTestCase<BeatBatch>("noBeats")
+        .adjustment(x -> x.setBeats(Collections.emptyList()))
+        .valid(false));
+    ret.add(new ValidationTestCase<BeatBatch>("tooManyBeats")
+        .adjustment(x -> x.setBeats(Collections.nCopies(1_001, new Beat("identifier", 0))))
+        .valid(false));
+    ret.add(new ValidationTestCase<BeatBatch>("invalidBeat")
+        .adjustment(x -> x.setBeats(Collections.singletonList(new Beat("identifier", 24))))
+        .valid(false));
+    return ret;
+  }
+}
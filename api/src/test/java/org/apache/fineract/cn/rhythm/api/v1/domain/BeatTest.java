@@ -20,6 +20,7 @@ package org.apache.fineract.cn.rhythm.api.v1.domain;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import org.apache.commons.lang.RandomStringUtils;
 import org.apache.fineract.cn.test.domain.ValidationTest;
 import org.apache.fineract.cn.test.domain.ValidationTestCase;
 import org.junit.runners.Parameterized;
@@ -50,6 +51,39 @@ public class BeatTest extends ValidationTest<Beat> {
     ret.add(new ValidationTestCase<Beat>("outOfDayAlignmentHour")
             .adjustment(x -> x.setAlignmentHour(24))
             .valid(false));
+    ret.add(new ValidationTestCase<Beat>("fireLastN")
+            .adjustment(x -> {x.setCatchUpPolicy(Beat.CatchUpPolicy.FIRE_LAST_N); x.setCatchUpLimit(3);})
+            .valid(true));
+    ret.add(new ValidationTestCase<Beat>("zeroCatchUpLimit")
+            .adjustment(x -> x.setCatchUpLimit(0))
+            .valid(false));
+    ret.add(new ValidationTestCase<Beat>("tooLargeCatchUpLimit")
+            .adjustment(x -> x.setCatchUpLimit(367))
+            .valid(false));
+    ret.add(new ValidationTestCase<Beat>("quarterHourPeriod")
+            .adjustment(x -> x.setPeriodMinutes(15))
+            .valid(true));
+    ret.add(new ValidationTestCase<Beat>("zeroPeriod")
+            .adjustment(x -> x.setPeriodMinutes(0))
+            .valid(false));
+    ret.add(new ValidationTestCase<Beat>("periodLongerThanDay")
+            .adjustment(x -> x.setPeriodMinutes(1441))
+            .valid(false));
+    ret.add(new ValidationTestCase<Beat>("cronExpression")
+            .adjustment(x -> x.setCronExpression("*/15 8-17 * * MON-FRI"))
+            .valid(true));
+    ret.add(new ValidationTestCase<Beat>("tooLongCronExpression")
+            .adjustment(x -> x.setCronExpression(RandomStringUtils.random(65)))
+            .valid(false));
+    ret.add(new ValidationTestCase<Beat>("quarterHourSpread")
+            .adjustment(x -> x.setSpreadSeconds(900))
+            .valid(true));
+    ret.add(new ValidationTestCase<Beat>("negativeSpread")
+            .adjustment(x -> x.setSpreadSeconds(-1))
+            .valid(false));
+    ret.add(new ValidationTestCase<Beat>("spreadOfDay")
+            .adjustment(x -> x.setSpreadSeconds(86_400))
+            .valid(false));
     return ret;
   }
 }
\ No newline at end of file
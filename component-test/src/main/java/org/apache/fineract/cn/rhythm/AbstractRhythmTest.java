@@ -23,6 +23,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import org.apache.fineract.cn.anubis.test.v1.TenantApplicationSecurityEnvironmentTestRule;
 import org.apache.fineract.cn.api.context.AutoUserContext;
@@ -32,6 +33,7 @@ import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
 import org.apache.fineract.cn.rhythm.api.v1.events.BeatEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
 import org.apache.fineract.cn.rhythm.service.config.RhythmConfiguration;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
 import org.apache.fineract.cn.rhythm.service.internal.service.BeatPublisherService;
 import org.apache.fineract.cn.rhythm.spi.v1.PermittableGroupIds;
 import org.apache.fineract.cn.test.env.TestEnvironment;
@@ -75,7 +77,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT,
         classes = {AbstractRhythmTest.TestConfiguration.class},
-        properties = {"rhythm.user=homer", "rhythm.beatCheckRate=1000"}
+        //Beats are set back and expected to be published again, so duplicates may not be suppressed.
+        properties = {"rhythm.user=homer", "rhythm.beatCheckRate=1000", "rhythm.publishDeduplicationWindow=0"}
 )
 public class AbstractRhythmTest {
 
@@ -133,6 +136,7 @@ public class AbstractRhythmTest {
 
   @Before
   public void prepTest() {
+    publishAsynchronouslyThroughPublishBeat();
     userContext = tenantApplicationSecurityEnvironment.createAutoUserContext(TEST_USER);
     final RSAPrivateKey tenantPrivateKey = tenantApplicationSecurityEnvironment.getSystemSecurityEnvironment().tenantPrivateKey();
     logger.info("tenantPrivateKey = {}", tenantPrivateKey);
@@ -144,6 +148,22 @@ public class AbstractRhythmTest {
     eventRecorder.clear();
   }
 
+  //The drummer publishes asynchronously.  Routing those publishes through publishBeat means tests only need to mock
+  //and verify publishBeat.
+  void publishAsynchronouslyThroughPublishBeat() {
+    Mockito.doAnswer(invocation -> CompletableFuture.completedFuture(beatPublisherServiceMock.publishBeat(
+        invocation.getArgumentAt(0, String.class),
+        invocation.getArgumentAt(1, String.class),
+        invocation.getArgumentAt(2, String.class),
+        invocation.getArgumentAt(3, LocalDateTime.class))))
+        .when(beatPublisherServiceMock).publishBeatAsync(
+            Matchers.anyString(),
+            Matchers.anyString(),
+            Matchers.anyString(),
+            Matchers.any(LocalDateTime.class),
+            Matchers.any(BeatOutboxEntry.Kind.class));
+  }
+
   public boolean waitForInitialize() {
     try {
       return this.eventRecorder.wait(EventConstants.INITIALIZE, EventConstants.INITIALIZE);
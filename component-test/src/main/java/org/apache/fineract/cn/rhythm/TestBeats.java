@@ -23,13 +23,18 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import javax.transaction.Transactional;
 import org.apache.fineract.cn.api.util.NotFoundException;
 import org.apache.fineract.cn.rhythm.api.v1.domain.Beat;
+import org.apache.fineract.cn.rhythm.api.v1.domain.BeatBatch;
+import org.apache.fineract.cn.rhythm.api.v1.domain.BeatDeletionBatch;
 import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.apache.fineract.cn.rhythm.api.v1.events.BeatBatchEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.BeatEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatEntity;
@@ -136,6 +141,32 @@ public class TestBeats extends AbstractRhythmTest {
     beats.forEach(x -> Assert.assertTrue(allEntities.contains(x)));
   }
 
+  @Test
+  public void shouldCreateAndDeleteBeatsInBatch() throws InterruptedException {
+    final String tenantIdentifier = tenantDataStoreContext.getTenantName();
+    final String applicationIdentifier = "funnybusiness-v9";
+    final Beat beat0 = new Beat("batchbeat0", 3);
+    final Beat beat1 = new Beat("batchbeat1", 4);
+    final List<String> beatIdentifiers = Arrays.asList(beat0.getIdentifier(), beat1.getIdentifier());
+
+    Mockito.doReturn(Optional.of("boop")).when(beatPublisherServiceMock)
+        .requestPermissionForBeats(Matchers.eq(tenantIdentifier), Matchers.eq(applicationIdentifier));
+
+    this.testSubject.createBeats(applicationIdentifier, new BeatBatch(null, Arrays.asList(beat0, beat1)));
+    Assert.assertTrue(this.eventRecorder.wait(EventConstants.POST_BEATS,
+        new BeatBatchEvent(applicationIdentifier, Collections.singletonList(tenantIdentifier), beatIdentifiers)));
+
+    final List<Beat> createdBeats = this.testSubject.getAllBeatsForApplication(applicationIdentifier);
+    Assert.assertTrue(createdBeats.contains(beat0));
+    Assert.assertTrue(createdBeats.contains(beat1));
+
+    this.testSubject.deleteBeats(applicationIdentifier, new BeatDeletionBatch(null, beatIdentifiers));
+    Assert.assertTrue(this.eventRecorder.wait(EventConstants.DELETE_BEATS,
+        new BeatBatchEvent(applicationIdentifier, Collections.singletonList(tenantIdentifier), beatIdentifiers)));
+
+    Assert.assertTrue(this.testSubject.getAllBeatsForApplication(applicationIdentifier).isEmpty());
+  }
+
   @Test
   public void shouldBeatForMissingDays() throws InterruptedException {
     final String applicationIdentifier = "funnybusiness-v6";
@@ -155,6 +186,38 @@ public class TestBeats extends AbstractRhythmTest {
     }
   }
 
+  @Test
+  public void shouldBeatOnlyForLatestMissingDay() throws InterruptedException {
+    final String applicationIdentifier = "funnybusiness-v8";
+    final String beatIdentifier = "fiddlebeat";
+    createBeatForThisHour(applicationIdentifier, beatIdentifier);
+
+    final BeatEntity beatEntity = beatRepository.findByTenantIdentifierAndApplicationIdentifierAndBeatIdentifier(
+        tenantDataStoreContext.getTenantName(),
+        applicationIdentifier,
+        beatIdentifier).orElseThrow(IllegalStateException::new);
+    beatEntity.setCatchUpPolicy(Beat.CatchUpPolicy.FIRE_LATEST_ONLY.name());
+    beatRepository.save(beatEntity);
+
+    final int daysAgo = 10;
+    final LocalDateTime nextBeat = setBack(applicationIdentifier, beatIdentifier, daysAgo);
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.timeout(4_000).times(1))
+        .publishBeat(
+            beatIdentifier,
+            tenantDataStoreContext.getTenantName(),
+            applicationIdentifier,
+            nextBeat.minusDays(1));
+    for (int i = daysAgo; i > 1; i--) {
+      Mockito.verify(beatPublisherServiceMock, Mockito.never())
+          .publishBeat(
+              beatIdentifier,
+              tenantDataStoreContext.getTenantName(),
+              applicationIdentifier,
+              nextBeat.minusDays(i));
+    }
+  }
+
   @Test
   public void clockOffsetShouldEffectBeatTiming() throws InterruptedException {
     final String tenantIdentifier = tenantDataStoreContext.getTenantName();
@@ -211,6 +274,7 @@ public class TestBeats extends AbstractRhythmTest {
         beatIdentifier).orElseThrow(IllegalStateException::new);
 
     Mockito.reset(beatPublisherServiceMock);
+    publishAsynchronouslyThroughPublishBeat();
     Mockito.doAnswer(new Returns(true)).when(beatPublisherServiceMock)
         .publishBeat(
             Matchers.eq(beatIdentifier),
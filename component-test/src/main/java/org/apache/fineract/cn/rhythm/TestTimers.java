@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import org.apache.fineract.cn.api.util.NotFoundException;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.rhythm.api.v1.domain.Timer;
+import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
+import org.apache.fineract.cn.rhythm.api.v1.events.TimerEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+/**
+ * @author Myrle Krantz
+ */
+public class TestTimers extends AbstractRhythmTest {
+
+  @Test
+  public void shouldCreateTimer() throws InterruptedException {
+    final String applicationIdentifier = "funnybusiness-v1";
+    final Timer timer = createTimer(applicationIdentifier, "ringring", LocalDateTime.now(ZoneId.of("UTC")).plusDays(1));
+
+    final Timer createdTimer = this.testSubject.getTimer(applicationIdentifier, timer.getIdentifier());
+    Assert.assertEquals(timer, createdTimer);
+  }
+
+  @Test
+  public void shouldDeleteTimer() throws InterruptedException {
+    final String applicationIdentifier = "funnybusiness-v2";
+    final Timer timer = createTimer(applicationIdentifier, "ringring", LocalDateTime.now(ZoneId.of("UTC")).plusDays(1));
+
+    this.testSubject.deleteTimer(applicationIdentifier, timer.getIdentifier());
+    Assert.assertTrue(this.eventRecorder.wait(EventConstants.DELETE_TIMER, new TimerEvent(applicationIdentifier, timer.getIdentifier())));
+
+    try {
+      this.testSubject.getTimer(applicationIdentifier, timer.getIdentifier());
+      Assert.fail("NotFoundException should be thrown.");
+    }
+    catch (final NotFoundException ignored) { }
+  }
+
+  @Test
+  public void shouldPublishTimerOnceAndDeleteIt() throws InterruptedException {
+    final String tenantIdentifier = tenantDataStoreContext.getTenantName();
+    final String applicationIdentifier = "funnybusiness-v3";
+    final String timerIdentifier = "ringring";
+    final LocalDateTime fireAt = LocalDateTime.now(ZoneId.of("UTC")).plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+
+    Mockito.doReturn(Optional.of("boop")).when(beatPublisherServiceMock)
+        .requestPermissionForBeats(Matchers.eq(tenantIdentifier), Matchers.eq(applicationIdentifier));
+    Mockito.when(beatPublisherServiceMock.publishBeat(timerIdentifier, tenantIdentifier, applicationIdentifier, fireAt))
+        .thenReturn(true);
+
+    createTimer(applicationIdentifier, timerIdentifier, fireAt);
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.timeout(10_000).times(1))
+        .publishBeat(timerIdentifier, tenantIdentifier, applicationIdentifier, fireAt);
+    try {
+      this.testSubject.getTimer(applicationIdentifier, timerIdentifier);
+      Assert.fail("NotFoundException should be thrown.");
+    }
+    catch (final NotFoundException ignored) { }
+  }
+
+  private Timer createTimer(
+      final String applicationIdentifier,
+      final String timerIdentifier,
+      final LocalDateTime fireAt) throws InterruptedException {
+    final Timer timer = new Timer(timerIdentifier, DateConverter.toIsoString(fireAt.truncatedTo(ChronoUnit.SECONDS)));
+
+    this.testSubject.createTimer(applicationIdentifier, timer);
+    Assert.assertTrue(this.eventRecorder.wait(EventConstants.POST_TIMER, new TimerEvent(applicationIdentifier, timerIdentifier)));
+
+    return timer;
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.fineract.cn.rhythm.listener;
 
+import org.apache.fineract.cn.rhythm.api.v1.events.BeatBatchEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.BeatEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
 import org.apache.fineract.cn.lang.config.TenantHeaderFilter;
@@ -61,4 +62,24 @@ public class BeatEventListener {
                                   final String payload) {
     this.eventRecorder.event(tenant, EventConstants.DELETE_BEAT, payload, BeatEvent.class);
   }
+
+  @JmsListener(
+          subscription = EventConstants.DESTINATION,
+          destination = EventConstants.DESTINATION,
+          selector = EventConstants.SELECTOR_POST_BEATS
+  )
+  public void onCreateBeats(@Header(TenantHeaderFilter.TENANT_HEADER) final String tenant,
+                                  final String payload) {
+    this.eventRecorder.event(tenant, EventConstants.POST_BEATS, payload, BeatBatchEvent.class);
+  }
+
+  @JmsListener(
+          subscription = EventConstants.DESTINATION,
+          destination = EventConstants.DESTINATION,
+          selector = EventConstants.SELECTOR_DELETE_BEATS
+  )
+  public void onDeleteBeats(@Header(TenantHeaderFilter.TENANT_HEADER) final String tenant,
+                                  final String payload) {
+    this.eventRecorder.event(tenant, EventConstants.DELETE_BEATS, payload, BeatBatchEvent.class);
+  }
 }
@@ -18,6 +18,8 @@
  */
 package org.apache.fineract.cn.rhythm.service.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.apache.fineract.cn.lang.validation.constraints.ValidIdentifier;
 import org.hibernate.validator.constraints.Range;
@@ -32,12 +34,144 @@ import org.springframework.validation.annotation.Validated;
 @ConfigurationProperties(prefix="rhythm")
 @Validated
 public class RhythmProperties {
+  public enum BeatTransport {
+    /**
+     * Beats are posted to the BeatListener of an instance of the application.
+     */
+    HTTP,
+    /**
+     * Beats are sent as BeatPublishEvents on rhythm's topic.  Applications subscribe with
+     * EventConstants.selectorPostPublishedBeat to receive only their own beats.
+     */
+    JMS
+  }
+
   @ValidIdentifier
   private String user;
 
+  //The longest the scan for missed beats sleeps.  It wakes sooner when a beat comes due sooner.
   @Range(min=0, max=3_600_000)
   private Long beatCheckRate = TimeUnit.MINUTES.toMillis(10);
 
+  @Range(min=10, max=60_000)
+  private Long tickRate = TimeUnit.SECONDS.toMillis(1);
+
+  @Range(min=1, max=10_000)
+  private Integer claimChunkSize = 100;
+
+  //Due beats read at once and put in tenant fair order, before they are claimed in chunks.  Tenants take turns
+  //within a window, so the work of a scan is bounded by the window rather than by the number of due beats.
+  @Range(min=1, max=1_000_000)
+  private Integer claimWindowSize = 10_000;
+
+  //The most beats a batch request may create or delete, counting each beat once for each tenant.
+  @Range(min=1, max=10_000_000)
+  private Integer beatBatchLimit = 100_000;
+
+  //The listener clients block, so this is also the most beats which can be waiting for a listener's answer at once.
+  @Range(min=1, max=1_000)
+  private Integer publisherThreads = 8;
+
+  //Publishes which find the queue full fail, and are tried again from the outbox.
+  @Range(min=1, max=1_000_000)
+  private Integer publisherQueueCapacity = 1_000;
+
+  @Range(min=1, max=1_000_000)
+  private Integer clockOffsetCacheSize = 10_000;
+
+  @Range(min=0, max=86_400_000)
+  private Long clockOffsetCacheExpiry = TimeUnit.MINUTES.toMillis(1);
+
+  @Range(min=1, max=1_000_000)
+  private Integer permittedApplicationsCacheSize = 10_000;
+
+  @Range(min=0, max=86_400_000)
+  private Long permittedApplicationsCacheExpiry = TimeUnit.MINUTES.toMillis(10);
+
+  @Range(min=1, max=100_000)
+  private Integer beatListenerCacheSize = 1_000;
+
+  //How many instances of the listening application a beat is offered to before publishing fails.
+  @Range(min=1, max=100)
+  private Integer publishAttempts = 3;
+
+  //The most beats sent in one request to listeners which accept batches.
+  @Range(min=1, max=100_000)
+  private Integer publishBatchSize = 500;
+
+  @Range(min=1, max=1_000)
+  private Integer listenerFailuresBeforeEjection = 3;
+
+  @Range(min=0, max=3_600_000)
+  private Long listenerEjectionTime = TimeUnit.SECONDS.toMillis(30);
+
+  //A beat which failed to publish waits before it is tried again.  The wait doubles with each failure in a row.
+  @Range(min=1, max=3_600_000)
+  private Long retryInitialBackoff = TimeUnit.SECONDS.toMillis(1);
+
+  @Range(min=1, max=86_400_000)
+  private Long retryMaxBackoff = TimeUnit.MINUTES.toMillis(10);
+
+  //A beat published again for the same time within this window is not sent again.  Zero turns this off.
+  @Range(min=0, max=604_800_000)
+  private Long publishDeduplicationWindow = TimeUnit.HOURS.toMillis(1);
+
+  //Beats published per second to all applications together.  Beats over the limit wait for their turn, for up to half
+  //of outboxLease.  Beats which would wait longer are tried again from the outbox later.  Zero turns this off.
+  @Range(min=0, max=1_000_000)
+  private Integer publishRateLimit = 0;
+
+  //Outbox entries claimed by the dispatcher at once.
+  @Range(min=1, max=100_000)
+  private Integer outboxClaimSize = 1_000;
+
+  //How often the dispatcher looks for outbox entries to retry, or which an instance claimed but never finished.
+  @Range(min=10, max=3_600_000)
+  private Long outboxPollRate = TimeUnit.SECONDS.toMillis(10);
+
+  //How long a claimed outbox entry is left to the instance which claimed it.  Must be longer than publishing can take.
+  @Range(min=1_000, max=86_400_000)
+  private Long outboxLease = TimeUnit.MINUTES.toMillis(5);
+
+  //How long sent outbox entries are kept.
+  @Range(min=0, max=2_592_000_000L)
+  private Long outboxRetention = TimeUnit.DAYS.toMillis(1);
+
+  //Attempts at publishing an outbox entry before it is given up on.  Entries given up on are kept for outboxRetention,
+  //like sent entries.
+  @Range(min=1, max=1_000_000)
+  private Integer outboxMaxAttempts = 100;
+
+  //Publishes to one application which may fail in a row before beats for it are deferred without being sent.
+  @Range(min=1, max=1_000_000)
+  private Integer circuitBreakerFailureThreshold = 5;
+
+  @Range(min=0, max=86_400_000)
+  private Long circuitBreakerOpenTime = TimeUnit.SECONDS.toMillis(30);
+
+  @Range(min=1, max=1_000)
+  private Integer circuitBreakerHalfOpenProbes = 1;
+
+  //How long an access token is kept if its expiry can't be read from it.
+  @Range(min=0, max=86_400_000)
+  private Long accessTokenTimeToLive = TimeUnit.MINUTES.toMillis(1);
+
+  @Range(min=0, max=3_600_000)
+  private Long accessTokenRefreshAhead = TimeUnit.SECONDS.toMillis(30);
+
+  //Share of publishing each tenant gets when several tenants have beats due at once.  Tenants not listed have weight 1.
+  private Map<String, Integer> tenantWeights = new HashMap<>();
+
+  //How beats are delivered to each application.  Applications not listed get their beats over HTTP.
+  private Map<String, BeatTransport> transports = new HashMap<>();
+
+  //Window in seconds over which the beats of each application are spread, for beats which don't set their own.
+  //Applications not listed aren't spread.
+  private Map<String, Integer> spreadSeconds = new HashMap<>();
+
+  //Beats published per second to each application.  Applications not listed are only limited by publishRateLimit.
+  private Map<String, Integer> publishRateLimits = new HashMap<>();
+
   public RhythmProperties() {
   }
 
@@ -56,4 +190,284 @@ public class RhythmProperties {
   public void setBeatCheckRate(Long beatCheckRate) {
     this.beatCheckRate = beatCheckRate;
   }
-}
\ No newline at end of file
+
+  public Long getTickRate() {
+    return tickRate;
+  }
+
+  public void setTickRate(Long tickRate) {
+    this.tickRate = tickRate;
+  }
+
+  public Integer getClaimChunkSize() {
+    return claimChunkSize;
+  }
+
+  public void setClaimChunkSize(Integer claimChunkSize) {
+    this.claimChunkSize = claimChunkSize;
+  }
+
+  public Integer getClaimWindowSize() {
+    return claimWindowSize;
+  }
+
+  public void setClaimWindowSize(Integer claimWindowSize) {
+    this.claimWindowSize = claimWindowSize;
+  }
+
+  public Integer getBeatBatchLimit() {
+    return beatBatchLimit;
+  }
+
+  public void setBeatBatchLimit(Integer beatBatchLimit) {
+    this.beatBatchLimit = beatBatchLimit;
+  }
+
+  public Integer getPublisherThreads() {
+    return publisherThreads;
+  }
+
+  public void setPublisherThreads(Integer publisherThreads) {
+    this.publisherThreads = publisherThreads;
+  }
+
+  public Integer getPublisherQueueCapacity() {
+    return publisherQueueCapacity;
+  }
+
+  public void setPublisherQueueCapacity(Integer publisherQueueCapacity) {
+    this.publisherQueueCapacity = publisherQueueCapacity;
+  }
+
+  public Integer getClockOffsetCacheSize() {
+    return clockOffsetCacheSize;
+  }
+
+  public void setClockOffsetCacheSize(Integer clockOffsetCacheSize) {
+    this.clockOffsetCacheSize = clockOffsetCacheSize;
+  }
+
+  public Long getClockOffsetCacheExpiry() {
+    return clockOffsetCacheExpiry;
+  }
+
+  public void setClockOffsetCacheExpiry(Long clockOffsetCacheExpiry) {
+    this.clockOffsetCacheExpiry = clockOffsetCacheExpiry;
+  }
+
+  public Integer getPermittedApplicationsCacheSize() {
+    return permittedApplicationsCacheSize;
+  }
+
+  public void setPermittedApplicationsCacheSize(Integer permittedApplicationsCacheSize) {
+    this.permittedApplicationsCacheSize = permittedApplicationsCacheSize;
+  }
+
+  public Long getPermittedApplicationsCacheExpiry() {
+    return permittedApplicationsCacheExpiry;
+  }
+
+  public void setPermittedApplicationsCacheExpiry(Long permittedApplicationsCacheExpiry) {
+    this.permittedApplicationsCacheExpiry = permittedApplicationsCacheExpiry;
+  }
+
+  public Integer getBeatListenerCacheSize() {
+    return beatListenerCacheSize;
+  }
+
+  public void setBeatListenerCacheSize(Integer beatListenerCacheSize) {
+    this.beatListenerCacheSize = beatListenerCacheSize;
+  }
+
+  public Integer getPublishAttempts() {
+    return publishAttempts;
+  }
+
+  public void setPublishAttempts(Integer publishAttempts) {
+    this.publishAttempts = publishAttempts;
+  }
+
+  public Integer getPublishBatchSize() {
+    return publishBatchSize;
+  }
+
+  public void setPublishBatchSize(Integer publishBatchSize) {
+    this.publishBatchSize = publishBatchSize;
+  }
+
+  public Integer getListenerFailuresBeforeEjection() {
+    return listenerFailuresBeforeEjection;
+  }
+
+  public void setListenerFailuresBeforeEjection(Integer listenerFailuresBeforeEjection) {
+    this.listenerFailuresBeforeEjection = listenerFailuresBeforeEjection;
+  }
+
+  public Long getListenerEjectionTime() {
+    return listenerEjectionTime;
+  }
+
+  public void setListenerEjectionTime(Long listenerEjectionTime) {
+    this.listenerEjectionTime = listenerEjectionTime;
+  }
+
+  public Long getRetryInitialBackoff() {
+    return retryInitialBackoff;
+  }
+
+  public void setRetryInitialBackoff(Long retryInitialBackoff) {
+    this.retryInitialBackoff = retryInitialBackoff;
+  }
+
+  public Long getRetryMaxBackoff() {
+    return retryMaxBackoff;
+  }
+
+  public void setRetryMaxBackoff(Long retryMaxBackoff) {
+    this.retryMaxBackoff = retryMaxBackoff;
+  }
+
+  public Long getPublishDeduplicationWindow() {
+    return publishDeduplicationWindow;
+  }
+
+  public void setPublishDeduplicationWindow(Long publishDeduplicationWindow) {
+    this.publishDeduplicationWindow = publishDeduplicationWindow;
+  }
+
+  public Integer getPublishRateLimit() {
+    return publishRateLimit;
+  }
+
+  public void setPublishRateLimit(Integer publishRateLimit) {
+    this.publishRateLimit = publishRateLimit;
+  }
+
+  public Integer getOutboxClaimSize() {
+    return outboxClaimSize;
+  }
+
+  public void setOutboxClaimSize(Integer outboxClaimSize) {
+    this.outboxClaimSize = outboxClaimSize;
+  }
+
+  public Long getOutboxPollRate() {
+    return outboxPollRate;
+  }
+
+  public void setOutboxPollRate(Long outboxPollRate) {
+    this.outboxPollRate = outboxPollRate;
+  }
+
+  public Long getOutboxLease() {
+    return outboxLease;
+  }
+
+  public void setOutboxLease(Long outboxLease) {
+    this.outboxLease = outboxLease;
+  }
+
+  public Long getOutboxRetention() {
+    return outboxRetention;
+  }
+
+  public void setOutboxRetention(Long outboxRetention) {
+    this.outboxRetention = outboxRetention;
+  }
+
+  public Integer getOutboxMaxAttempts() {
+    return outboxMaxAttempts;
+  }
+
+  public void setOutboxMaxAttempts(Integer outboxMaxAttempts) {
+    this.outboxMaxAttempts = outboxMaxAttempts;
+  }
+
+  public Integer getCircuitBreakerFailureThreshold() {
+    return circuitBreakerFailureThreshold;
+  }
+
+  public void setCircuitBreakerFailureThreshold(Integer circuitBreakerFailureThreshold) {
+    this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+  }
+
+  public Long getCircuitBreakerOpenTime() {
+    return circuitBreakerOpenTime;
+  }
+
+  public void setCircuitBreakerOpenTime(Long circuitBreakerOpenTime) {
+    this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+  }
+
+  public Integer getCircuitBreakerHalfOpenProbes() {
+    return circuitBreakerHalfOpenProbes;
+  }
+
+  public void setCircuitBreakerHalfOpenProbes(Integer circuitBreakerHalfOpenProbes) {
+    this.circuitBreakerHalfOpenProbes = circuitBreakerHalfOpenProbes;
+  }
+
+  public Long getAccessTokenTimeToLive() {
+    return accessTokenTimeToLive;
+  }
+
+  public void setAccessTokenTimeToLive(Long accessTokenTimeToLive) {
+    this.accessTokenTimeToLive = accessTokenTimeToLive;
+  }
+
+  public Long getAccessTokenRefreshAhead() {
+    return accessTokenRefreshAhead;
+  }
+
+  public void setAccessTokenRefreshAhead(Long accessTokenRefreshAhead) {
+    this.accessTokenRefreshAhead = accessTokenRefreshAhead;
+  }
+
+  public Map<String, Integer> getTenantWeights() {
+    return tenantWeights;
+  }
+
+  public void setTenantWeights(Map<String, Integer> tenantWeights) {
+    this.tenantWeights = tenantWeights;
+  }
+
+  public int getTenantWeight(final String tenantIdentifier) {
+    return tenantWeights.getOrDefault(tenantIdentifier, 1);
+  }
+
+  public Map<String, BeatTransport> getTransports() {
+    return transports;
+  }
+
+  public void setTransports(Map<String, BeatTransport> transports) {
+    this.transports = transports;
+  }
+
+  public BeatTransport getTransport(final String applicationIdentifier) {
+    return transports.getOrDefault(applicationIdentifier, BeatTransport.HTTP);
+  }
+
+  public Map<String, Integer> getSpreadSeconds() {
+    return spreadSeconds;
+  }
+
+  public void setSpreadSeconds(Map<String, Integer> spreadSeconds) {
+    this.spreadSeconds = spreadSeconds;
+  }
+
+  public int getSpreadSeconds(final String applicationIdentifier) {
+    return spreadSeconds.getOrDefault(applicationIdentifier, 0);
+  }
+
+  public Map<String, Integer> getPublishRateLimits() {
+    return publishRateLimits;
+  }
+
+  public void setPublishRateLimits(Map<String, Integer> publishRateLimits) {
+    this.publishRateLimits = publishRateLimits;
+  }
+
+  public int getPublishRateLimit(final String applicationIdentifier) {
+    return publishRateLimits.getOrDefault(applicationIdentifier, 0);
+  }
+}
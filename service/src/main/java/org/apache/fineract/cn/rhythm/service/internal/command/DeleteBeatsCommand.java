@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.command;
+
+import java.util.List;
+
+/**
+ * @author Myrle Krantz
+ */
+public class DeleteBeatsCommand {
+  private final String tenantIdentifier;
+
+  private final String applicationIdentifier;
+
+  private final List<String> tenantIdentifiers;
+
+  private final List<String> identifiers;
+
+  public DeleteBeatsCommand(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final List<String> tenantIdentifiers,
+      final List<String> identifiers) {
+    super();
+    this.tenantIdentifier = tenantIdentifier;
+    this.applicationIdentifier = applicationIdentifier;
+    this.tenantIdentifiers = tenantIdentifiers;
+    this.identifiers = identifiers;
+  }
+
+  /**
+   * @return the tenant of the request, which the event is sent to.
+   */
+  public String getTenantIdentifier() {
+    return tenantIdentifier;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  /**
+   * @return the tenants to delete the beats for.
+   */
+  public List<String> getTenantIdentifiers() {
+    return tenantIdentifiers;
+  }
+
+  public List<String> getIdentifiers() {
+    return identifiers;
+  }
+
+  @Override
+  public String toString() {
+    return "DeleteBeatsCommand{" +
+            "tenantIdentifier='" + tenantIdentifier + '\'' +
+            ", applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", tenants=" + tenantIdentifiers.size() +
+            ", identifiers=" + identifiers.size() +
+            '}';
+  }
+}
@@ -25,6 +25,9 @@ import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
 import org.apache.fineract.cn.rhythm.service.internal.command.DeleteApplicationCommand;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ApplicationRepository;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatRepository;
+import org.apache.fineract.cn.rhythm.service.internal.repository.TimerRepository;
+import org.apache.fineract.cn.rhythm.service.internal.service.IdentityPermittableGroupService;
+import org.apache.fineract.cn.rhythm.service.internal.service.Metronome;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,24 +39,37 @@ import org.springframework.transaction.annotation.Transactional;
 public class ApplicationCommandHandler {
   private final ApplicationRepository applicationRepository;
   private final BeatRepository beatRepository;
+  private final TimerRepository timerRepository;
+  private final IdentityPermittableGroupService identityPermittableGroupService;
+  private final Metronome metronome;
   private final EventHelper eventHelper;
 
   @Autowired
   public ApplicationCommandHandler(
           final ApplicationRepository applicationRepository,
           final BeatRepository beatRepository,
+          final TimerRepository timerRepository,
+          final IdentityPermittableGroupService identityPermittableGroupService,
+          final Metronome metronome,
           final EventHelper eventHelper) {
     super();
     this.applicationRepository = applicationRepository;
     this.beatRepository = beatRepository;
+    this.timerRepository = timerRepository;
+    this.identityPermittableGroupService = identityPermittableGroupService;
+    this.metronome = metronome;
     this.eventHelper = eventHelper;
   }
 
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.INFO)
   @Transactional
   public void process(final DeleteApplicationCommand deleteApplicationCommand) {
+    this.beatRepository.findByTenantIdentifierAndApplicationIdentifier(deleteApplicationCommand.getTenantIdentifier(), deleteApplicationCommand.getApplicationIdentifier())
+        .forEach(metronome::unschedule);
     this.applicationRepository.deleteByTenantIdentifierAndApplicationIdentifier(deleteApplicationCommand.getTenantIdentifier(), deleteApplicationCommand.getApplicationIdentifier());
+    this.identityPermittableGroupService.forget(deleteApplicationCommand.getTenantIdentifier(), deleteApplicationCommand.getApplicationIdentifier());
     this.beatRepository.deleteByTenantIdentifierAndApplicationIdentifier(deleteApplicationCommand.getTenantIdentifier(), deleteApplicationCommand.getApplicationIdentifier());
+    this.timerRepository.deleteByTenantIdentifierAndApplicationIdentifier(deleteApplicationCommand.getTenantIdentifier(), deleteApplicationCommand.getApplicationIdentifier());
     eventHelper.sendEvent(EventConstants.DELETE_APPLICATION, deleteApplicationCommand.getTenantIdentifier(), deleteApplicationCommand.getApplicationIdentifier());
   }
 }
@@ -18,20 +18,29 @@
  */
 package org.apache.fineract.cn.rhythm.service.internal.command.handler;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.rhythm.api.v1.domain.Beat;
 import org.apache.fineract.cn.command.annotation.Aggregate;
 import org.apache.fineract.cn.command.annotation.CommandHandler;
 import org.apache.fineract.cn.command.annotation.CommandLogLevel;
 import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.apache.fineract.cn.rhythm.api.v1.events.BeatBatchEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.BeatEvent;
 import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
 import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
 import org.apache.fineract.cn.rhythm.service.internal.command.CreateBeatCommand;
+import org.apache.fineract.cn.rhythm.service.internal.command.CreateBeatsCommand;
 import org.apache.fineract.cn.rhythm.service.internal.command.DeleteBeatCommand;
+import org.apache.fineract.cn.rhythm.service.internal.command.DeleteBeatsCommand;
 import org.apache.fineract.cn.rhythm.service.internal.mapper.BeatMapper;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatEntity;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatRepository;
 import org.apache.fineract.cn.rhythm.service.internal.service.ClockOffsetService;
 import org.apache.fineract.cn.rhythm.service.internal.service.IdentityPermittableGroupService;
+import org.apache.fineract.cn.rhythm.service.internal.service.Metronome;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -46,7 +55,9 @@ public class BeatCommandHandler {
   private final IdentityPermittableGroupService identityPermittableGroupService;
   private final BeatRepository beatRepository;
   private final ClockOffsetService clockOffsetService;
+  private final Metronome metronome;
   private final EventHelper eventHelper;
+  private final RhythmProperties properties;
   private final Logger logger;
 
   @Autowired
@@ -54,19 +65,24 @@ public class BeatCommandHandler {
       final IdentityPermittableGroupService identityPermittableGroupService,
       final BeatRepository beatRepository,
       final ClockOffsetService clockOffsetService,
+      final Metronome metronome,
       final EventHelper eventHelper,
+      final RhythmProperties properties,
       @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
     super();
     this.identityPermittableGroupService = identityPermittableGroupService;
     this.beatRepository = beatRepository;
     this.clockOffsetService = clockOffsetService;
+    this.metronome = metronome;
     this.eventHelper = eventHelper;
+    this.properties = properties;
     this.logger = logger;
   }
 
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.NONE)
   public void process(final CreateBeatCommand createBeatCommand) {
-    processCreateBeatCommand(createBeatCommand);
+    final BeatEntity entity = processCreateBeatCommand(createBeatCommand);
+    metronome.schedule(entity);
 
     final BeatEvent event
             = new BeatEvent(createBeatCommand.getApplicationIdentifier(), createBeatCommand.getInstance().getIdentifier());
@@ -78,7 +94,7 @@ public class BeatCommandHandler {
   //stuff that should happen in the transaction.
   @SuppressWarnings("WeakerAccess")
   @Transactional
-  public void processCreateBeatCommand(final CreateBeatCommand createBeatCommand) {
+  public BeatEntity processCreateBeatCommand(final CreateBeatCommand createBeatCommand) {
     final boolean applicationHasRequestForAccessPermission = identityPermittableGroupService.checkThatApplicationHasRequestForAccessPermission(
         createBeatCommand.getTenantIdentifier(), createBeatCommand.getApplicationIdentifier());
     if (!applicationHasRequestForAccessPermission) {
@@ -91,13 +107,62 @@ public class BeatCommandHandler {
         createBeatCommand.getTenantIdentifier(),
         createBeatCommand.getApplicationIdentifier(),
         createBeatCommand.getInstance(),
-        clockOffset);
-    this.beatRepository.save(entity);
+        clockOffset,
+        properties.getSpreadSeconds(createBeatCommand.getApplicationIdentifier()));
+    return this.beatRepository.save(entity);
+  }
+
+  @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.NONE)
+  public void process(final CreateBeatsCommand createBeatsCommand) {
+    final List<BeatEntity> entities = processCreateBeatsCommand(createBeatsCommand);
+    entities.forEach(metronome::schedule);
+
+    final BeatBatchEvent event = new BeatBatchEvent(
+        createBeatsCommand.getApplicationIdentifier(),
+        createBeatsCommand.getTenantIdentifiers(),
+        createBeatsCommand.getInstances().stream().map(Beat::getIdentifier).collect(Collectors.toList()));
+    logger.info("Sending event {} for {} beats.", EventConstants.POST_BEATS, entities.size());
+    eventHelper.sendEvent(EventConstants.POST_BEATS, createBeatsCommand.getTenantIdentifier(), event);
+  }
+
+  //Permission is checked once per tenant rather than once per beat, and applications which already have permission
+  //are read for all of the tenants in one query.  The beats are then written in one batch.
+  @SuppressWarnings("WeakerAccess")
+  @Transactional
+  public List<BeatEntity> processCreateBeatsCommand(final CreateBeatsCommand createBeatsCommand) {
+    final String applicationIdentifier = createBeatsCommand.getApplicationIdentifier();
+    final List<String> tenantIdentifiers = createBeatsCommand.getTenantIdentifiers();
+    identityPermittableGroupService.prefetch(tenantIdentifiers);
+    tenantIdentifiers.forEach(tenantIdentifier -> {
+      final boolean applicationHasRequestForAccessPermission = identityPermittableGroupService.checkThatApplicationHasRequestForAccessPermission(
+          tenantIdentifier, applicationIdentifier);
+      if (!applicationHasRequestForAccessPermission) {
+        logger.info("Rhythm needs permission to publish beats to application, but couldn't request that permission for tenant '{}' and application '{}'.",
+            tenantIdentifier, applicationIdentifier);
+      }
+    });
+    final Map<String, ClockOffset> clockOffsets = clockOffsetService.findByTenantIdentifiers(tenantIdentifiers);
+    final int applicationSpreadSeconds = properties.getSpreadSeconds(applicationIdentifier);
+
+    final List<BeatEntity> entities = tenantIdentifiers.stream()
+        .flatMap(tenantIdentifier -> createBeatsCommand.getInstances().stream()
+            .map(instance -> BeatMapper.map(
+                tenantIdentifier,
+                applicationIdentifier,
+                instance,
+                clockOffsets.get(tenantIdentifier),
+                applicationSpreadSeconds)))
+        .collect(Collectors.toList());
+    return this.beatRepository.upsertBeats(applicationIdentifier, entities);
   }
 
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.NONE)
   @Transactional
   public void process(final DeleteBeatCommand deleteBeatCommand) {
+    this.beatRepository.findByTenantIdentifierAndApplicationIdentifierAndBeatIdentifier(
+            deleteBeatCommand.getTenantIdentifier(),
+            deleteBeatCommand.getApplicationIdentifier(),
+            deleteBeatCommand.getIdentifier()).ifPresent(metronome::unschedule);
     this.beatRepository.deleteByTenantIdentifierAndApplicationIdentifierAndBeatIdentifier(
             deleteBeatCommand.getTenantIdentifier(),
             deleteBeatCommand.getApplicationIdentifier(),
@@ -106,4 +171,20 @@ public class BeatCommandHandler {
     eventHelper.sendEvent(EventConstants.DELETE_BEAT, deleteBeatCommand.getTenantIdentifier(),
             new BeatEvent(deleteBeatCommand.getApplicationIdentifier(), deleteBeatCommand.getIdentifier()));
   }
+
+  @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.NONE)
+  @Transactional
+  public void process(final DeleteBeatsCommand deleteBeatsCommand) {
+    final List<Long> deleted = this.beatRepository.deleteBeats(
+        deleteBeatsCommand.getApplicationIdentifier(),
+        deleteBeatsCommand.getTenantIdentifiers(),
+        deleteBeatsCommand.getIdentifiers());
+    deleted.forEach(metronome::unschedule);
+
+    eventHelper.sendEvent(EventConstants.DELETE_BEATS, deleteBeatsCommand.getTenantIdentifier(),
+        new BeatBatchEvent(
+            deleteBeatsCommand.getApplicationIdentifier(),
+            deleteBeatsCommand.getTenantIdentifiers(),
+            deleteBeatsCommand.getIdentifiers()));
+  }
 }
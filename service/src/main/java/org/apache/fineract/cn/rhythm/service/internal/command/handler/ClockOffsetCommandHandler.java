@@ -29,7 +29,9 @@ import org.apache.fineract.cn.rhythm.service.internal.command.ChangeClockOffsetC
 import org.apache.fineract.cn.rhythm.service.internal.mapper.ClockOffsetMapper;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetEntity;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetRepository;
+import org.apache.fineract.cn.rhythm.service.internal.service.ClockOffsetService;
 import org.apache.fineract.cn.rhythm.service.internal.service.Drummer;
+import org.apache.fineract.cn.rhythm.service.internal.service.Metronome;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -41,19 +43,25 @@ import org.springframework.beans.factory.annotation.Qualifier;
 @Aggregate
 public class ClockOffsetCommandHandler {
   private final ClockOffsetRepository clockOffsetRepository;
+  private final ClockOffsetService clockOffsetService;
   private final Drummer drummer;
+  private final Metronome metronome;
   private final EventHelper eventHelper;
   private final Logger logger;
 
   @Autowired
   public ClockOffsetCommandHandler(
       final ClockOffsetRepository clockOffsetRepository,
+      final ClockOffsetService clockOffsetService,
       final Drummer drummer,
+      final Metronome metronome,
       final EventHelper eventHelper,
       @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
     super();
     this.clockOffsetRepository = clockOffsetRepository;
+    this.clockOffsetService = clockOffsetService;
     this.drummer = drummer;
+    this.metronome = metronome;
     this.eventHelper = eventHelper;
     this.logger = logger;
   }
@@ -71,11 +79,12 @@ public class ClockOffsetCommandHandler {
         oldClockOffsetEntity);
 
     clockOffsetRepository.save(newOffsetEntity);
+    clockOffsetService.evict(changeClockOffsetCommand.getTenantIdentifier());
 
     drummer.realignAllBeatsForTenant(
         changeClockOffsetCommand.getTenantIdentifier(),
         oldClockOffsetEntity.orElseGet(ClockOffsetEntity::new),
-        newOffsetEntity);
+        newOffsetEntity).forEach(metronome::schedule);
 
     logger.info("Sending change clock offset event.");
     eventHelper.sendEvent(
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.command.handler;
+
+import java.time.LocalDateTime;
+import org.apache.fineract.cn.command.annotation.Aggregate;
+import org.apache.fineract.cn.command.annotation.CommandHandler;
+import org.apache.fineract.cn.command.annotation.CommandLogLevel;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.rhythm.api.v1.events.EventConstants;
+import org.apache.fineract.cn.rhythm.api.v1.events.TimerEvent;
+import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.internal.command.CreateTimerCommand;
+import org.apache.fineract.cn.rhythm.service.internal.command.DeleteTimerCommand;
+import org.apache.fineract.cn.rhythm.service.internal.repository.TimerRepository;
+import org.apache.fineract.cn.rhythm.service.internal.service.IdentityPermittableGroupService;
+import org.apache.fineract.cn.rhythm.service.internal.service.TimerKeeper;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * @author Myrle Krantz
+ */
+@SuppressWarnings("unused")
+@Aggregate
+public class TimerCommandHandler {
+  private final IdentityPermittableGroupService identityPermittableGroupService;
+  private final TimerRepository timerRepository;
+  private final TimerKeeper timerKeeper;
+  private final EventHelper eventHelper;
+  private final Logger logger;
+
+  @Autowired
+  public TimerCommandHandler(
+      final IdentityPermittableGroupService identityPermittableGroupService,
+      final TimerRepository timerRepository,
+      final TimerKeeper timerKeeper,
+      final EventHelper eventHelper,
+      @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
+    super();
+    this.identityPermittableGroupService = identityPermittableGroupService;
+    this.timerRepository = timerRepository;
+    this.timerKeeper = timerKeeper;
+    this.eventHelper = eventHelper;
+    this.logger = logger;
+  }
+
+  @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.NONE)
+  public void process(final CreateTimerCommand createTimerCommand) {
+    final LocalDateTime fireAt = processCreateTimerCommand(createTimerCommand);
+    timerKeeper.schedule(fireAt);
+
+    eventHelper.sendEvent(EventConstants.POST_TIMER, createTimerCommand.getTenantIdentifier(),
+        new TimerEvent(createTimerCommand.getApplicationIdentifier(), createTimerCommand.getInstance().getIdentifier()));
+  }
+
+  //The timer must be committed before the keeper is woken for it.
+  @SuppressWarnings("WeakerAccess")
+  @Transactional
+  public LocalDateTime processCreateTimerCommand(final CreateTimerCommand createTimerCommand) {
+    final boolean applicationHasRequestForAccessPermission = identityPermittableGroupService.checkThatApplicationHasRequestForAccessPermission(
+        createTimerCommand.getTenantIdentifier(), createTimerCommand.getApplicationIdentifier());
+    if (!applicationHasRequestForAccessPermission) {
+      logger.info("Rhythm needs permission to publish timers to application, but couldn't request that permission for tenant '{}' and application '{}'.",
+          createTimerCommand.getTenantIdentifier(), createTimerCommand.getApplicationIdentifier());
+    }
+
+    final LocalDateTime fireAt = DateConverter.fromIsoString(createTimerCommand.getInstance().getFireAt());
+    timerRepository.save(
+        createTimerCommand.getTenantIdentifier(),
+        createTimerCommand.getApplicationIdentifier(),
+        createTimerCommand.getInstance().getIdentifier(),
+        fireAt);
+    return fireAt;
+  }
+
+  @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.NONE)
+  @Transactional
+  public void process(final DeleteTimerCommand deleteTimerCommand) {
+    timerRepository.delete(
+        deleteTimerCommand.getTenantIdentifier(),
+        deleteTimerCommand.getApplicationIdentifier(),
+        deleteTimerCommand.getIdentifier());
+
+    eventHelper.sendEvent(EventConstants.DELETE_TIMER, deleteTimerCommand.getTenantIdentifier(),
+        new TimerEvent(deleteTimerCommand.getApplicationIdentifier(), deleteTimerCommand.getIdentifier()));
+  }
+}
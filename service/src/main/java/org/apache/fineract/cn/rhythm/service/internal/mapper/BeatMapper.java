@@ -26,9 +26,12 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatEntity;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetEntity;
+import org.apache.fineract.cn.rhythm.service.internal.schedule.BeatSchedule;
+import org.apache.fineract.cn.rhythm.service.internal.schedule.BeatSpread;
 
 /**
  * @author Myrle Krantz
@@ -38,6 +41,12 @@ public interface BeatMapper {
     final Beat ret = new Beat();
     ret.setIdentifier(entity.getBeatIdentifier());
     ret.setAlignmentHour(entity.getAlignmentHour());
+    if (entity.getCatchUpPolicy() != null)
+      ret.setCatchUpPolicy(Beat.CatchUpPolicy.valueOf(entity.getCatchUpPolicy()));
+    ret.setCatchUpLimit(entity.getCatchUpLimit());
+    ret.setPeriodMinutes(entity.getPeriodMinutes());
+    ret.setCronExpression(entity.getCronExpression());
+    ret.setSpreadSeconds(entity.getSpreadSeconds());
     return ret;
   }
 
@@ -51,17 +60,31 @@ public interface BeatMapper {
       final String tenantIdentifier,
       final String applicationIdentifier,
       final Beat instance,
-      final ClockOffset clockOffset) {
+      final ClockOffset clockOffset,
+      final int applicationSpreadSeconds) {
     final BeatEntity ret = new BeatEntity();
     ret.setBeatIdentifier(instance.getIdentifier());
     ret.setTenantIdentifier(tenantIdentifier);
     ret.setApplicationIdentifier(applicationIdentifier);
-    ret.setAlignmentHour(instance.getAlignmentHour());
-    //First beat is today.  If it's in the past, it will be published nearly immediately.
-    ret.setNextBeat(alignDateTime(
-        LocalDateTime.now(Clock.systemUTC()),
-        instance.getAlignmentHour(),
-        clockOffset));
+    final Optional<BeatSchedule> schedule = BeatSchedule.of(
+        instance.getAlignmentHour(), instance.getPeriodMinutes(), instance.getCronExpression());
+    //A beat with a schedule doesn't need an alignment hour, but the column does.
+    ret.setAlignmentHour((instance.getAlignmentHour() == null && schedule.isPresent()) ? 0 : instance.getAlignmentHour());
+    if (instance.getCatchUpPolicy() != null)
+      ret.setCatchUpPolicy(instance.getCatchUpPolicy().name());
+    ret.setCatchUpLimit(instance.getCatchUpLimit());
+    ret.setPeriodMinutes(instance.getPeriodMinutes());
+    ret.setCronExpression(instance.getCronExpression());
+    ret.setSpreadSeconds(instance.getSpreadSeconds());
+    //First beat is today.  If it's in the past, it will be published nearly immediately.  A beat with a schedule
+    //first fires at the next time on its schedule.  A spread beat fires that much later than its schedule says.
+    final long spreadOffset = BeatSpread.offsetSeconds(tenantIdentifier, instance.getIdentifier(),
+        instance.getSpreadSeconds() != null ? instance.getSpreadSeconds() : applicationSpreadSeconds);
+    final LocalDateTime now = LocalDateTime.now(Clock.systemUTC()).minusSeconds(spreadOffset);
+    ret.setNextBeat(schedule
+        .map(x -> x.next(now, clockOffset))
+        .orElseGet(() -> alignDateTime(now, instance.getAlignmentHour(), clockOffset))
+        .plusSeconds(spreadOffset));
     return ret;
   }
 
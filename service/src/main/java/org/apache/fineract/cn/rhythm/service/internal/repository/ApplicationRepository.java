@@ -23,6 +23,8 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -33,4 +35,5 @@ public interface ApplicationRepository extends JpaRepository<ApplicationEntity,
   @Lock(LockModeType.PESSIMISTIC_WRITE)
   void deleteByTenantIdentifierAndApplicationIdentifier(String tenantIdentifier, String applicationIdentifier);
   Optional<ApplicationEntity> findByTenantIdentifierAndApplicationIdentifier(String tenantIdentifier, String applicationIdentifier);
+  List<ApplicationEntity> findByTenantIdentifierIn(Collection<String> tenantIdentifiers);
 }
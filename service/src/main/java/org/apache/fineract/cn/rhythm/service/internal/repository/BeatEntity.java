@@ -57,6 +57,21 @@ public class BeatEntity {
   @Convert(converter = LocalDateTimeConverter.class)
   private LocalDateTime nextBeat;
 
+  @Column(name = "catch_up_policy")
+  private String catchUpPolicy;
+
+  @Column(name = "catch_up_limit")
+  private Integer catchUpLimit;
+
+  @Column(name = "period_minutes")
+  private Integer periodMinutes;
+
+  @Column(name = "cron_expression")
+  private String cronExpression;
+
+  @Column(name = "spread_seconds")
+  private Integer spreadSeconds;
+
   public BeatEntity() {
     super();
   }
@@ -109,6 +124,46 @@ public class BeatEntity {
     this.nextBeat = nextBeat;
   }
 
+  public String getCatchUpPolicy() {
+    return catchUpPolicy;
+  }
+
+  public void setCatchUpPolicy(String catchUpPolicy) {
+    this.catchUpPolicy = catchUpPolicy;
+  }
+
+  public Integer getCatchUpLimit() {
+    return catchUpLimit;
+  }
+
+  public void setCatchUpLimit(Integer catchUpLimit) {
+    this.catchUpLimit = catchUpLimit;
+  }
+
+  public Integer getPeriodMinutes() {
+    return periodMinutes;
+  }
+
+  public void setPeriodMinutes(Integer periodMinutes) {
+    this.periodMinutes = periodMinutes;
+  }
+
+  public String getCronExpression() {
+    return cronExpression;
+  }
+
+  public void setCronExpression(String cronExpression) {
+    this.cronExpression = cronExpression;
+  }
+
+  public Integer getSpreadSeconds() {
+    return spreadSeconds;
+  }
+
+  public void setSpreadSeconds(Integer spreadSeconds) {
+    this.spreadSeconds = spreadSeconds;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -133,6 +188,11 @@ public class BeatEntity {
             ", applicationIdentifier='" + applicationIdentifier + '\'' +
             ", alignmentHour=" + alignmentHour +
             ", nextBeat=" + nextBeat +
+            ", catchUpPolicy='" + catchUpPolicy + '\'' +
+            ", catchUpLimit=" + catchUpLimit +
+            ", periodMinutes=" + periodMinutes +
+            ", cronExpression='" + cronExpression + '\'' +
+            ", spreadSeconds=" + spreadSeconds +
             '}';
   }
 }
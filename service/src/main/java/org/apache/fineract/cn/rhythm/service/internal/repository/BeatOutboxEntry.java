@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.time.LocalDateTime;
+import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
+
+/**
+ * One beat publish waiting in khepri_beat_outbox.  Entries are written in the same transaction which advances the
+ * beat past them, and published by the dispatcher afterwards.  An entry which is not yet sent belongs to whichever
+ * instance of rhythm claimed it until its next attempt.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class BeatOutboxEntry {
+  public enum State {
+    PENDING,
+    SENT,
+    FAILED,
+    //Failed rhythm.outboxMaxAttempts times, and is not tried again.
+    DEAD
+  }
+
+  /**
+   * Whether the entry publishes a beat or a timer.  A beat and a timer may have the same identifier.
+   */
+  public enum Kind {
+    BEAT,
+    TIMER;
+
+    public BeatPublish.Kind toPublishKind() {
+      return BeatPublish.Kind.valueOf(name());
+    }
+  }
+
+  static final String COLUMNS = "id, tenant_identifier, application_identifier, beat_identifier, for_time, state, next_attempt, consecutive_failures, kind";
+  static final int LAST_ERROR_LENGTH = 512;
+
+  private Long id;
+  private final String tenantIdentifier;
+  private final String applicationIdentifier;
+  private final String beatIdentifier;
+  private final LocalDateTime forTime;
+  private State state;
+  private LocalDateTime nextAttempt;
+  private int consecutiveFailures;
+  private String lastError;
+  private final Kind kind;
+
+  public BeatOutboxEntry(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final String beatIdentifier,
+      final LocalDateTime forTime,
+      final LocalDateTime nextAttempt) {
+    this(null, tenantIdentifier, applicationIdentifier, beatIdentifier, forTime, State.PENDING, nextAttempt, 0, Kind.BEAT);
+  }
+
+  public BeatOutboxEntry(
+      final Long id,
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final String beatIdentifier,
+      final LocalDateTime forTime,
+      final State state,
+      final LocalDateTime nextAttempt,
+      final int consecutiveFailures,
+      final Kind kind) {
+    this.id = id;
+    this.tenantIdentifier = tenantIdentifier;
+    this.applicationIdentifier = applicationIdentifier;
+    this.beatIdentifier = beatIdentifier;
+    this.forTime = forTime;
+    this.state = state;
+    this.nextAttempt = nextAttempt;
+    this.consecutiveFailures = consecutiveFailures;
+    this.kind = kind;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getTenantIdentifier() {
+    return tenantIdentifier;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public String getBeatIdentifier() {
+    return beatIdentifier;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public LocalDateTime getForTime() {
+    return forTime;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public void setState(State state) {
+    this.state = state;
+  }
+
+  public LocalDateTime getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public void setNextAttempt(LocalDateTime nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  public int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  public void setConsecutiveFailures(int consecutiveFailures) {
+    this.consecutiveFailures = consecutiveFailures;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(String lastError) {
+    this.lastError = (lastError == null || lastError.length() <= LAST_ERROR_LENGTH)
+        ? lastError
+        : lastError.substring(0, LAST_ERROR_LENGTH);
+  }
+
+  @Override
+  public String toString() {
+    return "BeatOutboxEntry{" +
+            "id=" + id +
+            ", kind=" + kind +
+            ", beatIdentifier='" + beatIdentifier + '\'' +
+            ", tenantIdentifier='" + tenantIdentifier + '\'' +
+            ", applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", forTime=" + forTime +
+            ", state=" + state +
+            ", nextAttempt=" + nextAttempt +
+            ", consecutiveFailures=" + consecutiveFailures +
+            '}';
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and writes khepri_beat_outbox.  Every operation is a single statement, or a single batch, so that the
+ * transactions around them stay short.  Statements are run on the connection of the current transaction.
+ *
+ * @author Myrle Krantz
+ */
+@Repository
+public class BeatOutboxRepository {
+  private static final String NEXT_IDS
+      = "SELECT nextval('khepri_beat_outbox_id_seq') FROM generate_series(1, ?)";
+  private static final String INSERT
+      = "INSERT INTO khepri_beat_outbox (id, tenant_identifier, application_identifier, beat_identifier, for_time, state, next_attempt, consecutive_failures, kind) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final int[] INSERT_TYPES
+      = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR, Types.TIMESTAMP, Types.INTEGER, Types.VARCHAR};
+  //Entries locked by another instance of rhythm are skipped rather than waited for.  Moving the next attempt to the
+  //end of the lease keeps other instances from claiming the entries again once the lock is released.
+  private static final String CLAIM
+      = "UPDATE khepri_beat_outbox SET next_attempt = ? WHERE id IN ("
+      + "SELECT id FROM khepri_beat_outbox WHERE state <> 'SENT' AND state <> 'DEAD' AND next_attempt <= ? ORDER BY next_attempt, id LIMIT ? FOR UPDATE SKIP LOCKED"
+      + ") RETURNING " + BeatOutboxEntry.COLUMNS;
+  private static final String MARK_SENT
+      = "UPDATE khepri_beat_outbox SET state = 'SENT', sent_on = ?, last_error = NULL WHERE id = ?";
+  private static final int[] MARK_SENT_TYPES = {Types.TIMESTAMP, Types.BIGINT};
+  //An entry which is given up on keeps the time it was given up on as its next attempt.
+  private static final String MARK_FAILED
+      = "UPDATE khepri_beat_outbox SET state = ?, next_attempt = ?, consecutive_failures = ?, last_error = ? WHERE id = ?";
+  private static final int[] MARK_FAILED_TYPES
+      = {Types.VARCHAR, Types.TIMESTAMP, Types.INTEGER, Types.VARCHAR, Types.BIGINT};
+  //Of the entries of one beat which are still to be published, only the latest limit are kept.  If there are fewer,
+  //the earliest of them is the earliest kept, and nothing is deleted.
+  private static final String DELETE_SUPERSEDED
+      = "DELETE FROM khepri_beat_outbox WHERE tenant_identifier = ? AND application_identifier = ? AND beat_identifier = ?"
+      + " AND kind = 'BEAT' AND state <> 'SENT' AND state <> 'DEAD' AND for_time < (SELECT min(for_time) FROM ("
+      + "SELECT for_time FROM khepri_beat_outbox WHERE tenant_identifier = ? AND application_identifier = ? AND beat_identifier = ?"
+      + " AND kind = 'BEAT' AND state <> 'SENT' AND state <> 'DEAD' ORDER BY for_time DESC LIMIT ?) latest)";
+  private static final int[] DELETE_SUPERSEDED_TYPES
+      = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+  private static final String DELETE_FINISHED_BEFORE
+      = "DELETE FROM khepri_beat_outbox WHERE (state = 'SENT' AND sent_on < ?) OR (state = 'DEAD' AND next_attempt < ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public BeatOutboxRepository(final DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  //Ids are taken from the sequence in one round trip so that the entries can be inserted in one batch and still be
+  //handed to the dispatcher by id.
+  public void insert(final List<BeatOutboxEntry> entries) {
+    if (entries.isEmpty())
+      return;
+
+    final Iterator<Long> ids = jdbcTemplate.queryForList(NEXT_IDS, Long.class, entries.size()).iterator();
+    entries.forEach(entry -> entry.setId(ids.next()));
+    jdbcTemplate.batchUpdate(INSERT, entries.stream()
+        .map(entry -> new Object[] {
+            entry.getId(),
+            entry.getTenantIdentifier(),
+            entry.getApplicationIdentifier(),
+            entry.getBeatIdentifier(),
+            Timestamp.valueOf(entry.getForTime()),
+            entry.getState().name(),
+            Timestamp.valueOf(entry.getNextAttempt()),
+            entry.getConsecutiveFailures(),
+            entry.getKind().name()})
+        .collect(Collectors.toList()), INSERT_TYPES);
+  }
+
+  /**
+   * Claims up to limit entries which are due for an attempt, for this instance until leaseUntil.
+   *
+   * @return the claimed entries, oldest first.
+   */
+  public List<BeatOutboxEntry> claimDue(final LocalDateTime now, final LocalDateTime leaseUntil, final int limit) {
+    return jdbcTemplate.query(CLAIM, BeatOutboxRepository::fromRow,
+        Timestamp.valueOf(leaseUntil), Timestamp.valueOf(now), limit).stream()
+        .sorted(Comparator.comparing(BeatOutboxEntry::getId))
+        .collect(Collectors.toList());
+  }
+
+  public void markSent(final Collection<BeatOutboxEntry> entries, final LocalDateTime sentOn) {
+    if (entries.isEmpty())
+      return;
+
+    jdbcTemplate.batchUpdate(MARK_SENT, entries.stream()
+        .map(entry -> new Object[] {Timestamp.valueOf(sentOn), entry.getId()})
+        .collect(Collectors.toList()), MARK_SENT_TYPES);
+  }
+
+  public void markFailed(final Collection<BeatOutboxEntry> entries) {
+    if (entries.isEmpty())
+      return;
+
+    jdbcTemplate.batchUpdate(MARK_FAILED, entries.stream()
+        .map(entry -> new Object[] {
+            entry.getState().name(),
+            Timestamp.valueOf(entry.getNextAttempt()),
+            entry.getConsecutiveFailures(),
+            entry.getLastError(),
+            entry.getId()})
+        .collect(Collectors.toList()), MARK_FAILED_TYPES);
+  }
+
+  /**
+   * Deletes the entries of each of the given beats which are still to be published, except for the latest ones.  An
+   * entry stands for its beat, and is mapped to the number of entries to keep.  Entries which are being published right
+   * now may be deleted too.  Marking them afterwards then finds nothing to mark.
+   */
+  public void deleteSuperseded(final Map<BeatOutboxEntry, Integer> latestToKeep) {
+    if (latestToKeep.isEmpty())
+      return;
+
+    jdbcTemplate.batchUpdate(DELETE_SUPERSEDED, latestToKeep.entrySet().stream()
+        .map(x -> new Object[] {
+            x.getKey().getTenantIdentifier(),
+            x.getKey().getApplicationIdentifier(),
+            x.getKey().getBeatIdentifier(),
+            x.getKey().getTenantIdentifier(),
+            x.getKey().getApplicationIdentifier(),
+            x.getKey().getBeatIdentifier(),
+            x.getValue()})
+        .collect(Collectors.toList()), DELETE_SUPERSEDED_TYPES);
+  }
+
+  /**
+   * Deletes the entries which were sent, or given up on, before the given time.
+   */
+  public int deleteFinishedBefore(final LocalDateTime finishedBefore) {
+    return jdbcTemplate.update(DELETE_FINISHED_BEFORE, Timestamp.valueOf(finishedBefore), Timestamp.valueOf(finishedBefore));
+  }
+
+  static BeatOutboxEntry fromRow(final ResultSet resultSet, final int rowNumber) throws SQLException {
+    return new BeatOutboxEntry(
+        resultSet.getLong(1),
+        resultSet.getString(2),
+        resultSet.getString(3),
+        resultSet.getString(4),
+        resultSet.getTimestamp(5).toLocalDateTime(),
+        BeatOutboxEntry.State.valueOf(resultSet.getString(6)),
+        resultSet.getTimestamp(7).toLocalDateTime(),
+        resultSet.getInt(8),
+        BeatOutboxEntry.Kind.valueOf(resultSet.getString(9)));
+  }
+}
@@ -20,10 +20,13 @@ package org.apache.fineract.cn.rhythm.service.internal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
-import java.time.LocalDateTime;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -32,7 +35,7 @@ import java.util.stream.Stream;
  * @author Myrle Krantz
  */
 @Repository
-public interface BeatRepository extends JpaRepository<BeatEntity, Long> {
+public interface BeatRepository extends JpaRepository<BeatEntity, Long>, BeatRepositoryCustom {
   @Lock(LockModeType.PESSIMISTIC_WRITE)
   void deleteByTenantIdentifierAndApplicationIdentifier
       (String tenantIdentifier, String applicationIdentifier);
@@ -46,7 +49,29 @@ public interface BeatRepository extends JpaRepository<BeatEntity, Long> {
   Optional<BeatEntity> findByTenantIdentifierAndApplicationIdentifierAndBeatIdentifier
           (String tenantIdentifier, String applicationIdentifier, String beatIdentifier);
   @Lock(LockModeType.PESSIMISTIC_WRITE)
-  Stream<BeatEntity> findByNextBeatBefore(LocalDateTime currentTime);
-  @Lock(LockModeType.PESSIMISTIC_WRITE)
   Stream<BeatEntity> findByTenantIdentifier(String tenantIdentifier);
+
+  //Reads one window of due beats without locking, so that they can be put in order before they are claimed.  The
+  //scan walks the (next_beat, id) index from the position after the last window, and only the columns in DueBeat
+  //are read.
+  @Query(value = "SELECT " + DueBeat.COLUMNS + " FROM khepri_beats WHERE next_beat < :currentTime"
+      + " AND (next_beat, id) > (:afterNextBeat, :afterId)"
+      + " ORDER BY next_beat, id LIMIT :windowSize",
+      nativeQuery = true)
+  List<Object[]> findDueByNextBeatBefore(
+      @Param("currentTime") Timestamp currentTime,
+      @Param("afterNextBeat") Timestamp afterNextBeat,
+      @Param("afterId") Long afterId,
+      @Param("windowSize") Integer windowSize);
+  //Reads the given beats without locking, so that beats found due by the timing wheel can be put in order before they
+  //are claimed.
+  @Query(value = "SELECT " + DueBeat.COLUMNS + " FROM khepri_beats WHERE id IN (:ids)", nativeQuery = true)
+  List<Object[]> findDueByIdIn(@Param("ids") Collection<Long> ids);
+  //Beats locked by another instance of rhythm are skipped rather than waited for, so that instances can claim
+  //disjoint sets of due beats.
+  @Query(value = "SELECT " + DueBeat.COLUMNS + " FROM khepri_beats WHERE id IN (:ids) FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<Object[]> claimByIdIn(@Param("ids") Collection<Long> ids);
+  @Query(value = "SELECT MIN(next_beat) FROM khepri_beats WHERE next_beat > :currentTime", nativeQuery = true)
+  Timestamp findEarliestNextBeatAfter(@Param("currentTime") Timestamp currentTime);
 }
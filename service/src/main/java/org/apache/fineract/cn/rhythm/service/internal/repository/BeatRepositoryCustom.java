@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Myrle Krantz
+ */
+public interface BeatRepositoryCustom {
+  /**
+   * Write the next beat of each of the given beats, in one JDBC batch.
+   *
+   * @return the number of beats updated.
+   */
+  int updateNextBeats(Collection<DueBeat> beats);
+
+  /**
+   * Insert the given beats of one application, in one JDBC batch.  Beats which already exist are replaced, unless
+   * they are the same as before.  Then they keep their next beat.
+   *
+   * @return the given beats, with their ids and next beats as stored.
+   */
+  List<BeatEntity> upsertBeats(String applicationIdentifier, Collection<BeatEntity> beats);
+
+  /**
+   * Delete each of the given beats of one application for each of the given tenants, in one statement.
+   *
+   * @return the ids of the beats deleted.
+   */
+  List<Long> deleteBeats(
+      String applicationIdentifier,
+      Collection<String> tenantIdentifiers,
+      Collection<String> beatIdentifiers);
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The parts of BeatRepository which Spring Data can't derive.  Statements are run on the connection of the current
+ * transaction.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings("unused")
+public class BeatRepositoryImpl implements BeatRepositoryCustom {
+  private static final String UPDATE_NEXT_BEAT
+      = "UPDATE khepri_beats SET next_beat = ? WHERE id = ?";
+  private static final int[] UPDATE_NEXT_BEAT_TYPES
+      = {Types.TIMESTAMP, Types.BIGINT};
+  private static final String UPSERT_BEAT
+      = "INSERT INTO khepri_beats (tenant_identifier, application_identifier, beat_identifier, alignment_hour, next_beat, "
+      + "catch_up_policy, catch_up_limit, period_minutes, cron_expression, spread_seconds) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+      + "ON CONFLICT (tenant_identifier, application_identifier, beat_identifier) DO UPDATE SET "
+      + "alignment_hour = EXCLUDED.alignment_hour, next_beat = EXCLUDED.next_beat, "
+      + "catch_up_policy = EXCLUDED.catch_up_policy, catch_up_limit = EXCLUDED.catch_up_limit, "
+      + "period_minutes = EXCLUDED.period_minutes, cron_expression = EXCLUDED.cron_expression, "
+      + "spread_seconds = EXCLUDED.spread_seconds "
+      + "WHERE (khepri_beats.alignment_hour, khepri_beats.catch_up_policy, khepri_beats.catch_up_limit, "
+      + "khepri_beats.period_minutes, khepri_beats.cron_expression, khepri_beats.spread_seconds) IS DISTINCT FROM "
+      + "(EXCLUDED.alignment_hour, EXCLUDED.catch_up_policy, EXCLUDED.catch_up_limit, "
+      + "EXCLUDED.period_minutes, EXCLUDED.cron_expression, EXCLUDED.spread_seconds)";
+  private static final int[] UPSERT_BEAT_TYPES
+      = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.TIMESTAMP,
+         Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.INTEGER};
+  private static final String FIND_IDS
+      = "SELECT id, tenant_identifier, beat_identifier, next_beat FROM khepri_beats "
+      + "WHERE application_identifier = ? AND tenant_identifier = ANY(?) AND beat_identifier = ANY(?)";
+  private static final String DELETE_BEATS
+      = "DELETE FROM khepri_beats "
+      + "WHERE application_identifier = ? AND tenant_identifier = ANY(?) AND beat_identifier = ANY(?) RETURNING id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public BeatRepositoryImpl(final DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  //Updates are sent ordered by id so that concurrent batches lock rows in the same order.
+  @Override
+  public int updateNextBeats(final Collection<DueBeat> beats) {
+    if (beats.isEmpty())
+      return 0;
+
+    final List<Object[]> parameters = beats.stream()
+        .sorted((x, y) -> x.getId().compareTo(y.getId()))
+        .map(beat -> new Object[] {
+            Timestamp.valueOf(beat.getNextBeat()),
+            beat.getId()})
+        .collect(Collectors.toList());
+    final int[] updateCounts = jdbcTemplate.batchUpdate(UPDATE_NEXT_BEAT, parameters, UPDATE_NEXT_BEAT_TYPES);
+    return updateCounts.length;
+  }
+
+  //Like updates, inserts are sent in key order so that concurrent batches lock rows in the same order.  A JDBC batch
+  //can't return generated keys, so the ids are read back in one query on the unique key.  A beat which is the same
+  //as the one already there isn't written at all, so the next beat is read back too.
+  @Override
+  public List<BeatEntity> upsertBeats(final String applicationIdentifier, final Collection<BeatEntity> beats) {
+    if (beats.isEmpty())
+      return Collections.emptyList();
+
+    final List<BeatEntity> ordered = beats.stream()
+        .sorted(Comparator.comparing(BeatEntity::getTenantIdentifier).thenComparing(BeatEntity::getBeatIdentifier))
+        .collect(Collectors.toList());
+    final List<Object[]> parameters = ordered.stream()
+        .map(beat -> new Object[] {
+            beat.getTenantIdentifier(),
+            applicationIdentifier,
+            beat.getBeatIdentifier(),
+            beat.getAlignmentHour(),
+            Timestamp.valueOf(beat.getNextBeat()),
+            beat.getCatchUpPolicy(),
+            beat.getCatchUpLimit(),
+            beat.getPeriodMinutes(),
+            beat.getCronExpression(),
+            beat.getSpreadSeconds()})
+        .collect(Collectors.toList());
+    jdbcTemplate.batchUpdate(UPSERT_BEAT, parameters, UPSERT_BEAT_TYPES);
+
+    final Map<String, BeatEntity> byKey = ordered.stream()
+        .collect(Collectors.toMap(x -> key(x.getTenantIdentifier(), x.getBeatIdentifier()), Function.identity()));
+    jdbcTemplate.query(
+        connection -> {
+          final PreparedStatement statement = connection.prepareStatement(FIND_IDS);
+          statement.setString(1, applicationIdentifier);
+          statement.setArray(2, connection.createArrayOf("varchar",
+              ordered.stream().map(BeatEntity::getTenantIdentifier).distinct().toArray()));
+          statement.setArray(3, connection.createArrayOf("varchar",
+              ordered.stream().map(BeatEntity::getBeatIdentifier).distinct().toArray()));
+          return statement;
+        },
+        resultSet -> {
+          final BeatEntity beat = byKey.get(key(resultSet.getString(2), resultSet.getString(3)));
+          if (beat != null) {
+            beat.setId(resultSet.getLong(1));
+            beat.setNextBeat(resultSet.getTimestamp(4).toLocalDateTime());
+          }
+        });
+    return ordered;
+  }
+
+  @Override
+  public List<Long> deleteBeats(
+      final String applicationIdentifier,
+      final Collection<String> tenantIdentifiers,
+      final Collection<String> beatIdentifiers) {
+    if (tenantIdentifiers.isEmpty() || beatIdentifiers.isEmpty())
+      return Collections.emptyList();
+
+    return jdbcTemplate.query(
+        connection -> {
+          final PreparedStatement statement = connection.prepareStatement(DELETE_BEATS);
+          statement.setString(1, applicationIdentifier);
+          statement.setArray(2, connection.createArrayOf("varchar", tenantIdentifiers.toArray()));
+          statement.setArray(3, connection.createArrayOf("varchar", beatIdentifiers.toArray()));
+          return statement;
+        },
+        (resultSet, rowNumber) -> resultSet.getLong(1));
+  }
+
+  private static String key(final String tenantIdentifier, final String beatIdentifier) {
+    return tenantIdentifier + "/" + beatIdentifier;
+  }
+}
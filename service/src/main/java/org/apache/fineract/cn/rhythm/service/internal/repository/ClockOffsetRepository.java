@@ -20,8 +20,11 @@ package org.apache.fineract.cn.rhythm.service.internal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ClockOffsetRepository extends JpaRepository<ClockOffsetEntity, Long> {
   Optional<ClockOffsetEntity> findByTenantIdentifier(String tenantIdentifier);
+  List<ClockOffsetEntity> findByTenantIdentifierIn(Collection<String> tenantIdentifiers);
 }
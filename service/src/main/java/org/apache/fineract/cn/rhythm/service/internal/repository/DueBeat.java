@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a beat which the drummer needs to publish it, read without hydrating a BeatEntity.  The column
+ * order matches the select list of the due beat queries in BeatRepository.  Only the next beat is written back.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class DueBeat {
+  static final String COLUMNS = "id, tenant_identifier, application_identifier, beat_identifier, alignment_hour, next_beat, catch_up_policy, catch_up_limit, period_minutes, cron_expression, spread_seconds";
+
+  private final Long id;
+  private final String tenantIdentifier;
+  private final String applicationIdentifier;
+  private final String beatIdentifier;
+  private final Integer alignmentHour;
+  private LocalDateTime nextBeat;
+  private final String catchUpPolicy;
+  private final Integer catchUpLimit;
+  private final Integer periodMinutes;
+  private final String cronExpression;
+  private final Integer spreadSeconds;
+
+  public DueBeat(
+      final Long id,
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final String beatIdentifier,
+      final Integer alignmentHour,
+      final LocalDateTime nextBeat,
+      final String catchUpPolicy,
+      final Integer catchUpLimit,
+      final Integer periodMinutes,
+      final String cronExpression,
+      final Integer spreadSeconds) {
+    this.id = id;
+    this.tenantIdentifier = tenantIdentifier;
+    this.applicationIdentifier = applicationIdentifier;
+    this.beatIdentifier = beatIdentifier;
+    this.alignmentHour = alignmentHour;
+    this.nextBeat = nextBeat;
+    this.catchUpPolicy = catchUpPolicy;
+    this.catchUpLimit = catchUpLimit;
+    this.periodMinutes = periodMinutes;
+    this.cronExpression = cronExpression;
+    this.spreadSeconds = spreadSeconds;
+  }
+
+  public static DueBeat fromRow(final Object[] row) {
+    return new DueBeat(
+        ((Number) row[0]).longValue(),
+        (String) row[1],
+        (String) row[2],
+        (String) row[3],
+        ((Number) row[4]).intValue(),
+        ((Timestamp) row[5]).toLocalDateTime(),
+        (String) row[6],
+        row[7] == null ? null : ((Number) row[7]).intValue(),
+        row[8] == null ? null : ((Number) row[8]).intValue(),
+        (String) row[9],
+        row[10] == null ? null : ((Number) row[10]).intValue());
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getTenantIdentifier() {
+    return tenantIdentifier;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public String getBeatIdentifier() {
+    return beatIdentifier;
+  }
+
+  public Integer getAlignmentHour() {
+    return alignmentHour;
+  }
+
+  public LocalDateTime getNextBeat() {
+    return nextBeat;
+  }
+
+  public void setNextBeat(LocalDateTime nextBeat) {
+    this.nextBeat = nextBeat;
+  }
+
+  public String getCatchUpPolicy() {
+    return catchUpPolicy;
+  }
+
+  public Integer getCatchUpLimit() {
+    return catchUpLimit;
+  }
+
+  public Integer getPeriodMinutes() {
+    return periodMinutes;
+  }
+
+  public String getCronExpression() {
+    return cronExpression;
+  }
+
+  public Integer getSpreadSeconds() {
+    return spreadSeconds;
+  }
+
+  @Override
+  public String toString() {
+    return "DueBeat{" +
+            "id=" + id +
+            ", beatIdentifier='" + beatIdentifier + '\'' +
+            ", tenantIdentifier='" + tenantIdentifier + '\'' +
+            ", applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", alignmentHour=" + alignmentHour +
+            ", nextBeat=" + nextBeat +
+            ", catchUpPolicy='" + catchUpPolicy + '\'' +
+            ", periodMinutes=" + periodMinutes +
+            ", cronExpression='" + cronExpression + '\'' +
+            ", spreadSeconds=" + spreadSeconds +
+            '}';
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and writes khepri_timers.  Every operation is a single statement on the table's key or on its fire_at index.
+ * Statements are run on the connection of the current transaction.
+ *
+ * @author Myrle Krantz
+ */
+@Repository
+public class TimerRepository {
+  private static final String UPSERT
+      = "INSERT INTO khepri_timers (tenant_identifier, application_identifier, timer_identifier, fire_at) VALUES (?, ?, ?, ?) "
+      + "ON CONFLICT (tenant_identifier, application_identifier, timer_identifier) DO UPDATE SET fire_at = EXCLUDED.fire_at";
+  private static final String FIND_FIRE_AT
+      = "SELECT fire_at FROM khepri_timers WHERE tenant_identifier = ? AND application_identifier = ? AND timer_identifier = ?";
+  private static final String DELETE
+      = "DELETE FROM khepri_timers WHERE tenant_identifier = ? AND application_identifier = ? AND timer_identifier = ?";
+  private static final String DELETE_FOR_APPLICATION
+      = "DELETE FROM khepri_timers WHERE tenant_identifier = ? AND application_identifier = ?";
+  private static final String FIND_EARLIEST_FIRE_AT_AFTER
+      = "SELECT min(fire_at) FROM khepri_timers WHERE fire_at > ?";
+  //Due timers are deleted and written to the outbox in one statement, already claimed by this instance.  Timers locked
+  //by another instance of rhythm are skipped rather than waited for.
+  private static final String MOVE_DUE_TO_OUTBOX
+      = "WITH due AS (DELETE FROM khepri_timers WHERE (tenant_identifier, application_identifier, timer_identifier) IN ("
+      + "SELECT tenant_identifier, application_identifier, timer_identifier FROM khepri_timers WHERE fire_at <= ? ORDER BY fire_at LIMIT ? FOR UPDATE SKIP LOCKED"
+      + ") RETURNING tenant_identifier, application_identifier, timer_identifier, fire_at) "
+      + "INSERT INTO khepri_beat_outbox (id, tenant_identifier, application_identifier, beat_identifier, for_time, state, next_attempt, consecutive_failures, kind) "
+      + "SELECT nextval('khepri_beat_outbox_id_seq'), tenant_identifier, application_identifier, timer_identifier, fire_at, 'PENDING', ?, 0, 'TIMER' FROM due "
+      + "RETURNING " + BeatOutboxEntry.COLUMNS;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public TimerRepository(final DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  public void save(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final String timerIdentifier,
+      final LocalDateTime fireAt) {
+    jdbcTemplate.update(UPSERT, tenantIdentifier, applicationIdentifier, timerIdentifier, Timestamp.valueOf(fireAt));
+  }
+
+  public Optional<LocalDateTime> findFireAt(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final String timerIdentifier) {
+    return jdbcTemplate.queryForList(FIND_FIRE_AT, Timestamp.class, tenantIdentifier, applicationIdentifier, timerIdentifier)
+        .stream()
+        .findFirst()
+        .map(Timestamp::toLocalDateTime);
+  }
+
+  public void delete(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final String timerIdentifier) {
+    jdbcTemplate.update(DELETE, tenantIdentifier, applicationIdentifier, timerIdentifier);
+  }
+
+  public void deleteByTenantIdentifierAndApplicationIdentifier(
+      final String tenantIdentifier,
+      final String applicationIdentifier) {
+    jdbcTemplate.update(DELETE_FOR_APPLICATION, tenantIdentifier, applicationIdentifier);
+  }
+
+  /**
+   * @return the earliest time after the given one at which a timer fires, or null if there is no such timer.
+   */
+  public LocalDateTime findEarliestFireAtAfter(final LocalDateTime after) {
+    final Timestamp ret = jdbcTemplate.queryForObject(FIND_EARLIEST_FIRE_AT_AFTER, Timestamp.class, Timestamp.valueOf(after));
+    return ret == null ? null : ret.toLocalDateTime();
+  }
+
+  /**
+   * Deletes up to limit timers which are due, and writes an outbox entry for each of them, claimed by this instance
+   * until leaseUntil.
+   *
+   * @return the outbox entries, oldest first.
+   */
+  public List<BeatOutboxEntry> moveDueToOutbox(final LocalDateTime now, final LocalDateTime leaseUntil, final int limit) {
+    return jdbcTemplate.query(MOVE_DUE_TO_OUTBOX, BeatOutboxRepository::fromRow,
+        Timestamp.valueOf(now), limit, Timestamp.valueOf(leaseUntil)).stream()
+        .sorted(Comparator.comparing(BeatOutboxEntry::getForTime).thenComparing(BeatOutboxEntry::getId))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.schedule;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+
+/**
+ * When a beat with a period or a cron expression fires.  Schedules are evaluated in the tenant's time, which is UTC
+ * moved back by the tenant's clock offset, the same way a daily beat's alignment hour is.  A schedule is compiled once
+ * per distinct definition and shared by every beat which uses it.  Evaluating it doesn't allocate anything but the
+ * returned time.
+ *
+ * @author Myrle Krantz
+ */
+public abstract class BeatSchedule {
+  private static final int MAXIMUM_CACHED_SCHEDULES = 10_000;
+  private static final ConcurrentMap<List<Object>, BeatSchedule> COMPILED = new ConcurrentHashMap<>();
+
+  /**
+   * @return the schedule of a beat, or empty if the beat fires once a day at its alignment hour.
+   * @throws IllegalArgumentException if the period or the cron expression is not valid.
+   */
+  public static Optional<BeatSchedule> of(
+      final Integer alignmentHour,
+      final Integer periodMinutes,
+      final String cronExpression) {
+    if (periodMinutes != null && cronExpression != null)
+      throw new IllegalArgumentException("A beat can have a period or a cron expression, but not both.");
+    if (periodMinutes == null && cronExpression == null)
+      return Optional.empty();
+
+    final List<Object> key = (cronExpression != null)
+        ? Arrays.asList(null, null, cronExpression)
+        : Arrays.asList(alignmentHour == null ? 0 : alignmentHour, periodMinutes, null);
+    final BeatSchedule cached = COMPILED.get(key);
+    if (cached != null)
+      return Optional.of(cached);
+
+    final BeatSchedule compiled = (cronExpression != null)
+        ? CronSchedule.compile(cronExpression)
+        : PeriodicSchedule.compile(alignmentHour == null ? 0 : alignmentHour, periodMinutes);
+    if (COMPILED.size() >= MAXIMUM_CACHED_SCHEDULES)
+      COMPILED.clear();
+    COMPILED.put(key, compiled);
+    return Optional.of(compiled);
+  }
+
+  /**
+   * @return the first time the beat fires after the given time.  Both times are in UTC.
+   */
+  public LocalDateTime next(final LocalDateTime after, final ClockOffset clockOffset) {
+    final long offsetSeconds = clockOffset.getHours() * 3600L + clockOffset.getMinutes() * 60L + clockOffset.getSeconds();
+    final long localNext = nextLocal(after.toEpochSecond(ZoneOffset.UTC) - offsetSeconds);
+    return LocalDateTime.ofEpochSecond(localNext + offsetSeconds, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * @param after seconds since the epoch in the tenant's time.
+   * @return seconds since the epoch in the tenant's time, strictly after the given time.
+   */
+  abstract long nextLocal(long after);
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.schedule;
+
+/**
+ * Where in its spread window a beat fires.  A spread beat fires at its offset after each time on its schedule.  The
+ * offset depends only on the tenant and the beat identifier, so the beats of a window arrive at an even rate, and each
+ * of them fires at the same offset every time.
+ *
+ * @author Myrle Krantz
+ */
+public final class BeatSpread {
+  private BeatSpread() {
+  }
+
+  /**
+   * @return the beat's offset in seconds, from zero up to but not including the window.
+   */
+  public static long offsetSeconds(final String tenantIdentifier, final String beatIdentifier, final int windowSeconds) {
+    if (windowSeconds <= 1)
+      return 0;
+
+    //String.hashCode is the same on every JVM, so every instance of rhythm computes the same offset.  It is mixed
+    //because similar identifiers have similar hash codes.
+    final long hash = tenantIdentifier.hashCode() * 0x9E3779B97F4A7C15L + beatIdentifier.hashCode();
+    return Long.remainderUnsigned(mix(hash), windowSeconds);
+  }
+
+  //The MurmurHash3 finalizer.
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
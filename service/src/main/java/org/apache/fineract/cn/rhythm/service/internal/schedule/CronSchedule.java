@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.schedule;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fires at the times matching a cron expression of five fields: minute, hour, day of month, month and day of week.
+ * Each field is a list of values, ranges (1-5), and steps (*&#47;15, 10-40/10), or *.  Months and days of week can be
+ * given as three letter names, and Sunday is both 0 and 7.  As in cron, if neither the day of month nor the day of
+ * week is *, a day matching either of them fires.
+ *
+ * The fields are compiled into bit sets, so finding the next time is a walk over days and hours with a bit lookup at
+ * each step.
+ *
+ * @author Myrle Krantz
+ */
+final class CronSchedule extends BeatSchedule {
+  private static final List<String> MONTH_NAMES
+      = Arrays.asList("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+  private static final List<String> DAY_OF_WEEK_NAMES
+      = Arrays.asList("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+  //February 29th can be eight years away.
+  private static final int MAXIMUM_DAYS_SEARCHED = 366 * 9;
+  private static final int MINUTES_PER_DAY = 24 * 60;
+
+  private final long minutes;
+  private final long hours;
+  private final long daysOfMonth;
+  private final long months;
+  private final long daysOfWeek;
+  private final boolean eitherDayMatches;
+
+  private CronSchedule(
+      final long minutes,
+      final long hours,
+      final long daysOfMonth,
+      final long months,
+      final long daysOfWeek,
+      final boolean eitherDayMatches) {
+    this.minutes = minutes;
+    this.hours = hours;
+    this.daysOfMonth = daysOfMonth;
+    this.months = months;
+    this.daysOfWeek = daysOfWeek;
+    this.eitherDayMatches = eitherDayMatches;
+  }
+
+  static CronSchedule compile(final String cronExpression) {
+    final String[] fields = cronExpression.trim().toUpperCase().split("\\s+");
+    if (fields.length != 5)
+      throw new IllegalArgumentException("A cron expression must have five fields: minute, hour, day of month, month and day of week.");
+
+    final long daysOfWeek = parseField(fields[4], 0, 7, DAY_OF_WEEK_NAMES, 0, "day of week");
+    final CronSchedule ret = new CronSchedule(
+        parseField(fields[0], 0, 59, null, 0, "minute"),
+        parseField(fields[1], 0, 23, null, 0, "hour"),
+        parseField(fields[2], 1, 31, null, 0, "day of month"),
+        parseField(fields[3], 1, 12, MONTH_NAMES, 1, "month"),
+        ((daysOfWeek >>> 7) | daysOfWeek) & 0x7F,
+        !fields[2].startsWith("*") && !fields[4].startsWith("*"));
+    try {
+      ret.nextLocal(0);
+    }
+    catch (final IllegalStateException e) {
+      throw new IllegalArgumentException("The cron expression never fires.");
+    }
+    return ret;
+  }
+
+  @Override
+  long nextLocal(final long after) {
+    final long firstMinute = Math.floorDiv(after, 60) + 1;
+    long epochDay = Math.floorDiv(firstMinute, MINUTES_PER_DAY);
+    int hour = (int) Math.floorMod(firstMinute, MINUTES_PER_DAY) / 60;
+    int minute = (int) Math.floorMod(firstMinute, MINUTES_PER_DAY) % 60;
+    for (int i = 0; i <= MAXIMUM_DAYS_SEARCHED; i++, epochDay++, hour = 0, minute = 0) {
+      if (!firesOn(epochDay))
+        continue;
+
+      for (; hour < 24; hour++, minute = 0) {
+        if ((hours & (1L << hour)) == 0)
+          continue;
+
+        final long minutesLeftInHour = minutes & (-1L << minute);
+        if (minutesLeftInHour != 0)
+          return (epochDay * MINUTES_PER_DAY + hour * 60 + Long.numberOfTrailingZeros(minutesLeftInHour)) * 60;
+      }
+    }
+    throw new IllegalStateException("No time matching the cron expression was found.");
+  }
+
+  //The month and day of month are worked out from the day since the epoch as in java.time.LocalDate.ofEpochDay, but
+  //without creating a date.
+  private boolean firesOn(final long epochDay) {
+    final long zeroDay = epochDay + 719_468;
+    final long era = Math.floorDiv(zeroDay, 146_097);
+    final long dayOfEra = zeroDay - era * 146_097;
+    final long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+    final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    final int dayOfMonth = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    final int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    final int dayOfWeek = (int) Math.floorMod(epochDay + 4, 7); //1970-01-01 was a Thursday.
+
+    if ((months & (1L << month)) == 0)
+      return false;
+
+    final boolean dayOfMonthMatches = (daysOfMonth & (1L << dayOfMonth)) != 0;
+    final boolean dayOfWeekMatches = (daysOfWeek & (1L << dayOfWeek)) != 0;
+    return eitherDayMatches
+        ? dayOfMonthMatches || dayOfWeekMatches
+        : dayOfMonthMatches && dayOfWeekMatches;
+  }
+
+  private static long parseField(
+      final String field,
+      final int min,
+      final int max,
+      final List<String> names,
+      final int firstNameValue,
+      final String fieldName) {
+    long ret = 0;
+    for (final String part : field.split(",")) {
+      final String[] rangeAndStep = part.split("/", -1);
+      if (rangeAndStep.length > 2)
+        throw new IllegalArgumentException("The " + fieldName + " field of the cron expression is not valid.");
+      final int step = (rangeAndStep.length == 2) ? parseValue(rangeAndStep[1], 1, max, null, 0, fieldName) : 1;
+
+      final String range = rangeAndStep[0];
+      final int from;
+      final int to;
+      if (range.equals("*")) {
+        from = min;
+        to = max;
+      }
+      else if (range.contains("-")) {
+        final String[] bounds = range.split("-", -1);
+        if (bounds.length != 2)
+          throw new IllegalArgumentException("The " + fieldName + " field of the cron expression is not valid.");
+        from = parseValue(bounds[0], min, max, names, firstNameValue, fieldName);
+        to = parseValue(bounds[1], min, max, names, firstNameValue, fieldName);
+        if (from > to)
+          throw new IllegalArgumentException("The " + fieldName + " field of the cron expression has a backwards range.");
+      }
+      else {
+        from = parseValue(range, min, max, names, firstNameValue, fieldName);
+        to = (rangeAndStep.length == 2) ? max : from;
+      }
+
+      for (int i = from; i <= to; i += step)
+        ret |= 1L << i;
+    }
+    return ret;
+  }
+
+  private static int parseValue(
+      final String value,
+      final int min,
+      final int max,
+      final List<String> names,
+      final int firstNameValue,
+      final String fieldName) {
+    if (names != null && names.contains(value))
+      return names.indexOf(value) + firstNameValue;
+
+    final int ret;
+    try {
+      ret = Integer.parseInt(value);
+    }
+    catch (final NumberFormatException e) {
+      throw new IllegalArgumentException("The " + fieldName + " field of the cron expression is not valid.");
+    }
+    if (ret < min || ret > max)
+      throw new IllegalArgumentException("The " + fieldName + " field of the cron expression must be between " + min + " and " + max + ".");
+    return ret;
+  }
+}
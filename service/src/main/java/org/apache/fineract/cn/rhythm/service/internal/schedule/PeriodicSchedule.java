@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.schedule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires every period, starting at the alignment hour.  The period has to divide a day evenly, so the beat fires at
+ * the same times every day.
+ *
+ * @author Myrle Krantz
+ */
+final class PeriodicSchedule extends BeatSchedule {
+  private static final long MINUTES_PER_DAY = TimeUnit.DAYS.toMinutes(1);
+
+  private final long periodSeconds;
+  private final long phaseSeconds;
+
+  private PeriodicSchedule(final long periodSeconds, final long phaseSeconds) {
+    this.periodSeconds = periodSeconds;
+    this.phaseSeconds = phaseSeconds;
+  }
+
+  static PeriodicSchedule compile(final int alignmentHour, final int periodMinutes) {
+    if (periodMinutes <= 0 || MINUTES_PER_DAY % periodMinutes != 0)
+      throw new IllegalArgumentException("The period of a beat must divide a day into equal parts.");
+
+    final long periodSeconds = TimeUnit.MINUTES.toSeconds(periodMinutes);
+    return new PeriodicSchedule(periodSeconds, TimeUnit.HOURS.toSeconds(alignmentHour) % periodSeconds);
+  }
+
+  @Override
+  long nextLocal(final long after) {
+    return phaseSeconds + (Math.floorDiv(after - phaseSeconds, periodSeconds) + 1) * periodSeconds;
+  }
+}
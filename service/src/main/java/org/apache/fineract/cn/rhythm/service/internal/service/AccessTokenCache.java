@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.lang.AutoTenantContext;
+import org.apache.fineract.cn.permittedfeignclient.service.ApplicationAccessTokenService;
+import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rhythm's access tokens, one per tenant.  A token is fetched from identity the first time it is needed, and kept
+ * until it expires.  Tokens which were used are refreshed in the background shortly before they expire, so that
+ * publishing beats doesn't wait on identity.  If several threads need the token of a tenant which isn't cached, only
+ * one of them fetches it, and the others wait for that fetch.  A tenant whose refresh failed isn't refreshed again
+ * until its backoff has passed, the same way a beat which failed to publish is retried, so that rhythm doesn't keep
+ * asking identity every second while identity is down.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class AccessTokenCache implements PublicMetrics {
+  //A token this close to expiry isn't handed out any more, so that it doesn't expire on the way to the listener.
+  private static final long EXPIRY_MARGIN = TimeUnit.SECONDS.toMillis(5);
+  private static final long REFRESH_CHECK_RATE = TimeUnit.SECONDS.toMillis(1);
+
+  private static class CachedToken {
+    private final String accessToken;
+    private final long expiresAt;
+    private volatile boolean used = false;
+    //Only touched by the refresher.
+    private int refreshFailures = 0;
+    private long nextRefreshAt = 0;
+
+    private CachedToken(final String accessToken, final long expiresAt) {
+      this.accessToken = accessToken;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final ApplicationAccessTokenService applicationAccessTokenService;
+  private final RhythmProperties properties;
+  private final Logger logger;
+  private final ConcurrentMap<String, CachedToken> tokens = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CompletableFuture<CachedToken>> fetches = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService refresher;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  @Autowired
+  public AccessTokenCache(
+      @SuppressWarnings("SpringJavaAutowiringInspection") final ApplicationAccessTokenService applicationAccessTokenService,
+      final RhythmProperties properties,
+      @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
+    this.applicationAccessTokenService = applicationAccessTokenService;
+    this.properties = properties;
+    this.logger = logger;
+    this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "access-token-refresher"));
+    this.refresher.scheduleWithFixedDelay(this::refreshExpiringTokens,
+        REFRESH_CHECK_RATE, REFRESH_CHECK_RATE, TimeUnit.MILLISECONDS);
+  }
+
+  public String getAccessToken(final String tenantIdentifier) {
+    final CachedToken cached = tokens.get(tenantIdentifier);
+    if (cached != null && isUsable(cached, Clock.systemUTC().millis())) {
+      hits.incrementAndGet();
+      cached.used = true;
+      return cached.accessToken;
+    }
+
+    misses.incrementAndGet();
+    try {
+      final CachedToken fetched = fetch(tenantIdentifier, false).join();
+      fetched.used = true;
+      return fetched.accessToken;
+    }
+    catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw e;
+    }
+  }
+
+  /**
+   * Drop the token if it is still the cached one, for example because a listener rejected it.
+   */
+  public void evict(final String tenantIdentifier, final String accessToken) {
+    tokens.computeIfPresent(tenantIdentifier, (x, cached) -> cached.accessToken.equals(accessToken) ? null : cached);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    final long hitCount = hits.get();
+    final long missCount = misses.get();
+    final long lookups = hitCount + missCount;
+    return Arrays.<Metric<?>>asList(
+        new Metric<>("rhythm.accesstoken.cache.hits", hitCount),
+        new Metric<>("rhythm.accesstoken.cache.misses", missCount),
+        new Metric<>("rhythm.accesstoken.cache.hitrate", lookups == 0 ? 0.0 : (double) hitCount / lookups),
+        new Metric<>("rhythm.accesstoken.cache.refreshes", refreshes.get()),
+        new Metric<>("rhythm.accesstoken.cache.failures", failures.get()),
+        new Metric<>("rhythm.accesstoken.cache.size", tokens.size()));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refresher.shutdownNow();
+  }
+
+  //Tokens which weren't used since they were fetched are left to expire, so that tenants which stopped getting
+  //beats don't keep rhythm talking to identity.
+  private void refreshExpiringTokens() {
+    final long now = Clock.systemUTC().millis();
+    tokens.forEach((tenantIdentifier, cached) -> {
+      if (now < cached.expiresAt - properties.getAccessTokenRefreshAhead() || now < cached.nextRefreshAt)
+        return;
+
+      if (!cached.used) {
+        if (!isUsable(cached, now))
+          tokens.remove(tenantIdentifier, cached);
+        return;
+      }
+
+      try {
+        fetch(tenantIdentifier, true).join();
+        refreshes.incrementAndGet();
+      }
+      catch (final CompletionException e) {
+        cached.refreshFailures++;
+        final long delay = RetryBackoff.delay(
+            cached.refreshFailures,
+            properties.getRetryInitialBackoff(),
+            properties.getRetryMaxBackoff(),
+            ThreadLocalRandom.current().nextDouble());
+        cached.nextRefreshAt = now + delay;
+        logger.warn("Refreshing the access token for tenant '{}' failed {} times in a row. Trying again in {}ms.",
+            tenantIdentifier, cached.refreshFailures, delay, e.getCause());
+      }
+    });
+  }
+
+  private CompletableFuture<CachedToken> fetch(final String tenantIdentifier, final boolean refresh) {
+    final CompletableFuture<CachedToken> ret = new CompletableFuture<>();
+    final CompletableFuture<CachedToken> inFlight = fetches.putIfAbsent(tenantIdentifier, ret);
+    if (inFlight != null)
+      return inFlight;
+
+    //Another fetch may have finished between the cache lookup and claiming this one.
+    final CachedToken cached = tokens.get(tenantIdentifier);
+    if (!refresh && cached != null && isUsable(cached, Clock.systemUTC().millis())) {
+      fetches.remove(tenantIdentifier, ret);
+      ret.complete(cached);
+      return ret;
+    }
+
+    try (final AutoTenantContext ignored = new AutoTenantContext(tenantIdentifier)) {
+      final String accessToken = applicationAccessTokenService.getAccessToken(properties.getUser(), tenantIdentifier);
+      final CachedToken fetched = new CachedToken(
+          accessToken,
+          expiresAt(accessToken, Clock.systemUTC().millis(), properties.getAccessTokenTimeToLive()));
+      tokens.put(tenantIdentifier, fetched);
+      ret.complete(fetched);
+    }
+    catch (final RuntimeException e) {
+      failures.incrementAndGet();
+      ret.completeExceptionally(e);
+    }
+    finally {
+      fetches.remove(tenantIdentifier, ret);
+    }
+    return ret;
+  }
+
+  private static boolean isUsable(final CachedToken cached, final long now) {
+    return now < cached.expiresAt - EXPIRY_MARGIN;
+  }
+
+  //Identity's tokens are JWTs.  If the expiry can't be read from the token, it is assumed to live for timeToLive.
+  static long expiresAt(final String accessToken, final long now, final long timeToLive) {
+    try {
+      final String[] parts = accessToken.replaceFirst("^Bearer ", "").split("\\.");
+      if (parts.length == 3) {
+        final String claims = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        final JsonElement expiration = new JsonParser().parse(claims).getAsJsonObject().get("exp");
+        if (expiration != null)
+          return TimeUnit.SECONDS.toMillis(expiration.getAsLong());
+      }
+    }
+    catch (final RuntimeException ignored) {
+    }
+    return now + timeToLive;
+  }
+}
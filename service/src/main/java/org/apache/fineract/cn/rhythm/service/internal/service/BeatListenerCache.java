@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.fineract.cn.rhythm.spi.v1.client.BeatListener;
+
+/**
+ * Beat listener clients, one per listener instance, keyed by the instance's home page url.  Creating a client builds
+ * a whole feign proxy, so clients are reused for as long as the instance is registered.  Connections are kept alive
+ * between publishes by the http client underneath.  The cache is bounded, and the least recently used instance is
+ * dropped first.
+ *
+ * @author Myrle Krantz
+ */
+class BeatListenerCache {
+  private final Function<String, BeatListener> clientFactory;
+  private final Map<String, BeatListener> clients;
+
+  BeatListenerCache(final Function<String, BeatListener> clientFactory, final int maximumSize) {
+    this.clientFactory = clientFactory;
+    this.clients = new LinkedHashMap<String, BeatListener>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, BeatListener> eldest) {
+        return size() > maximumSize;
+      }
+    };
+  }
+
+  synchronized BeatListener get(final String homePageUrl) {
+    return clients.computeIfAbsent(homePageUrl, clientFactory);
+  }
+
+  /**
+   * Drop the clients of instances which are no longer registered.
+   */
+  synchronized void retainOnly(final Set<String> registeredHomePageUrls) {
+    final Iterator<String> iterator = clients.keySet().iterator();
+    while (iterator.hasNext()) {
+      if (!registeredHomePageUrls.contains(iterator.next()))
+        iterator.remove();
+    }
+  }
+
+  synchronized int size() {
+    return clients.size();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses which instances of a listening application a beat is sent to, and in which order they are tried.  Instances
+ * with the fewest publishes in flight go first, and instances with the same number take turns.  An instance which
+ * failed failuresBeforeEjection times in a row is put last for ejectionTime, so that it is only tried if all others
+ * fail as well.  Health is learned only from the outcome of publishes.
+ *
+ * @author Myrle Krantz
+ */
+class BeatListenerSelector {
+  private static class InstanceHealth {
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long ejectedUntil = 0;
+  }
+
+  private final int failuresBeforeEjection;
+  private final long ejectionTime;
+  private final Clock clock;
+  private final ConcurrentMap<String, InstanceHealth> instances = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicInteger> turns = new ConcurrentHashMap<>();
+
+  BeatListenerSelector(final int failuresBeforeEjection, final long ejectionTime, final Clock clock) {
+    this.failuresBeforeEjection = failuresBeforeEjection;
+    this.ejectionTime = ejectionTime;
+    this.clock = clock;
+  }
+
+  /**
+   * @return the home page urls of the application's instances, in the order they should be tried.
+   */
+  List<String> select(final String applicationIdentifier, final List<String> homePageUrls) {
+    if (homePageUrls.isEmpty())
+      return Collections.emptyList();
+
+    final int turn = Math.floorMod(
+        turns.computeIfAbsent(applicationIdentifier, x -> new AtomicInteger()).getAndIncrement(),
+        homePageUrls.size());
+    final List<String> ret = new ArrayList<>(homePageUrls.size());
+    ret.addAll(homePageUrls.subList(turn, homePageUrls.size()));
+    ret.addAll(homePageUrls.subList(0, turn));
+
+    //The counts change while sorting, so they are read once up front.
+    final long now = clock.millis();
+    final Map<String, Long> ranks = new HashMap<>();
+    ret.forEach(x -> ranks.put(x, (isEjected(x, now) ? 1L << 32 : 0L) + Math.max(0, health(x).outstanding.get())));
+    ret.sort(Comparator.comparing(ranks::get));
+    return ret;
+  }
+
+  void started(final String homePageUrl) {
+    health(homePageUrl).outstanding.incrementAndGet();
+  }
+
+  void succeeded(final String homePageUrl) {
+    final InstanceHealth health = health(homePageUrl);
+    health.outstanding.decrementAndGet();
+    health.consecutiveFailures.set(0);
+    health.ejectedUntil = 0;
+  }
+
+  void failed(final String homePageUrl) {
+    final InstanceHealth health = health(homePageUrl);
+    health.outstanding.decrementAndGet();
+    if (health.consecutiveFailures.incrementAndGet() >= failuresBeforeEjection)
+      health.ejectedUntil = clock.millis() + ejectionTime;
+  }
+
+  //For publishes which failed through no fault of the instance.
+  void released(final String homePageUrl) {
+    health(homePageUrl).outstanding.decrementAndGet();
+  }
+
+  void retainOnly(final Set<String> registeredHomePageUrls) {
+    instances.keySet().retainAll(registeredHomePageUrls);
+  }
+
+  private boolean isEjected(final String homePageUrl, final long now) {
+    final InstanceHealth health = instances.get(homePageUrl);
+    return health != null && health.ejectedUntil > now;
+  }
+
+  private InstanceHealth health(final String homePageUrl) {
+    return instances.computeIfAbsent(homePageUrl, x -> new InstanceHealth());
+  }
+}
@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxRepository;
+import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes the beats in khepri_beat_outbox.  The drummer hands over the entries it has just written, and the
+ * dispatcher also polls for entries which are due for a retry, or which were claimed by an instance of rhythm which
+ * never finished them.  No database lock is held while a beat is being published: entries are claimed in one short
+ * transaction, and marked sent or failed in another once publishing has completed.
+ *
+ * The entries of one beat which are published together are published in order, each one only after the one before
+ * it succeeded.  There is no order between entries published apart: an entry written while an earlier entry of the
+ * same beat waits for its retry is published straight away, so a listener may receive a beat's entries out of order
+ * and should go by their forTime.  Entries are published at least once.  An instance which stops between publishing an entry and marking it sent leaves the entry
+ * to be published again once its claim runs out.  Entries which this instance already published within the
+ * deduplication window are marked sent without being published again.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class BeatOutboxDispatcher implements PublicMetrics {
+  private final IdentityPermittableGroupService identityPermittableGroupService;
+  private final BeatPublisherService beatPublisherService;
+  private final BeatPublisherPool beatPublisherPool;
+  private final BeatOutboxRepository beatOutboxRepository;
+  private final RecentlyPublished recentlyPublished;
+  private final RhythmProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final Logger logger;
+  private final ScheduledExecutorService scheduler;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong dead = new AtomicLong();
+
+  @Autowired
+  public BeatOutboxDispatcher(
+      final IdentityPermittableGroupService identityPermittableGroupService,
+      final BeatPublisherService beatPublisherService,
+      final BeatPublisherPool beatPublisherPool,
+      final BeatOutboxRepository beatOutboxRepository,
+      final RecentlyPublished recentlyPublished,
+      final RhythmProperties properties,
+      final PlatformTransactionManager transactionManager,
+      @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
+    this.identityPermittableGroupService = identityPermittableGroupService;
+    this.beatPublisherService = beatPublisherService;
+    this.beatPublisherPool = beatPublisherPool;
+    this.beatOutboxRepository = beatOutboxRepository;
+    this.recentlyPublished = recentlyPublished;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.logger = logger;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "beat-dispatcher"));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    scheduler.scheduleWithFixedDelay(this::poll, 0, properties.getOutboxPollRate(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Publishes entries which were claimed by this instance when they were written.  Returns without waiting for them to
+   * be published.
+   */
+  public void dispatch(final List<BeatOutboxEntry> entries) {
+    if (!entries.isEmpty())
+      execute(() -> publish(entries));
+  }
+
+  private void poll() {
+    try {
+      final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+      final int purged = beatOutboxRepository.deleteFinishedBefore(now.minus(properties.getOutboxRetention(), ChronoUnit.MILLIS));
+      if (purged > 0)
+        logger.debug("Purged {} sent or dead outbox entries.", purged);
+    }
+    catch (final RuntimeException e) {
+      logger.info("Could not purge sent or dead outbox entries. Probably cause initialize hasn't been called yet.");
+      return;
+    }
+    drain();
+  }
+
+  //A full claim may have left entries behind, so another claim follows once the entries of this one are published.
+  private void drain() {
+    try {
+      final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+      final LocalDateTime leaseUntil = now.plus(properties.getOutboxLease(), ChronoUnit.MILLIS);
+      final List<BeatOutboxEntry> claimed = transactionTemplate.execute(
+          status -> beatOutboxRepository.claimDue(now, leaseUntil, properties.getOutboxClaimSize()));
+      if (claimed.isEmpty())
+        return;
+
+      logger.info("Claimed {} outbox entries.", claimed.size());
+      publish(claimed).thenRun(() -> {
+        if (claimed.size() >= properties.getOutboxClaimSize())
+          execute(this::drain);
+      });
+    }
+    catch (final RuntimeException e) {
+      logger.warn("Claiming outbox entries failed.", e);
+    }
+  }
+
+  private CompletableFuture<Void> publish(final List<BeatOutboxEntry> entries) {
+    final Map<List<String>, List<BeatOutboxEntry>> byApplication = entries.stream()
+        .collect(Collectors.groupingBy(
+            entry -> Arrays.asList(entry.getTenantIdentifier(), entry.getApplicationIdentifier()),
+            LinkedHashMap::new,
+            Collectors.toList()));
+    identityPermittableGroupService.prefetch(entries.stream()
+        .map(BeatOutboxEntry::getTenantIdentifier)
+        .collect(Collectors.toSet()));
+
+    inFlight.addAndGet(entries.size());
+    final CompletableFuture<?>[] published = byApplication.values().stream()
+        .map(this::publishForApplication)
+        .toArray(CompletableFuture[]::new);
+    return CompletableFuture.allOf(published)
+        .thenRunAsync(() -> record(entries), scheduler)
+        .whenComplete((x, e) -> inFlight.addAndGet(-entries.size()));
+  }
+
+  //Checking the application's access may call identity, so it is done on a publisher thread.
+  private CompletableFuture<Void> publishForApplication(final List<BeatOutboxEntry> entries) {
+    final String tenantIdentifier = entries.get(0).getTenantIdentifier();
+    final String applicationIdentifier = entries.get(0).getApplicationIdentifier();
+    return beatPublisherPool.submit(() -> identityPermittableGroupService
+        .checkThatApplicationHasRequestForAccessPermission(tenantIdentifier, applicationIdentifier))
+        .thenCompose(applicationHasRequestForAccessPermission -> {
+          if (!applicationHasRequestForAccessPermission) {
+            logger.info("Not publishing {} beats for application '{}', because application access needed to publish is not available.",
+                entries.size(), applicationIdentifier);
+            entries.forEach(entry -> entry.setLastError("Application access needed to publish is not available."));
+            return CompletableFuture.completedFuture(null);
+          }
+
+          if (beatPublisherService.acceptsBatches(applicationIdentifier))
+            return publishBatch(tenantIdentifier, applicationIdentifier, entries);
+
+          final CompletableFuture<?>[] published = entries.stream()
+              .collect(Collectors.groupingBy(
+                  entry -> Arrays.asList(entry.getKind().name(), entry.getBeatIdentifier()),
+                  LinkedHashMap::new,
+                  Collectors.toList()))
+              .values().stream()
+              .map(beatEntries -> publishInOrder(tenantIdentifier, applicationIdentifier, byForTime(beatEntries), 0))
+              .toArray(CompletableFuture[]::new);
+          return CompletableFuture.allOf(published);
+        })
+        .exceptionally(e -> {
+          logger.warn("Publishing {} beats for application '{}' failed.", entries.size(), applicationIdentifier, e);
+          entries.forEach(entry -> entry.setLastError(e.toString()));
+          return null;
+        });
+  }
+
+  //The entries of one tenant and application are published together, in requests of up to publishBatchSize entries.
+  //Only the entries of the requests which failed are retried.
+  private CompletableFuture<Void> publishBatch(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final List<BeatOutboxEntry> entries) {
+    final List<BeatOutboxEntry> entriesToPublish = entries.stream()
+        .filter(entry -> !skippedAsDuplicate(entry))
+        .collect(Collectors.toList());
+    if (entriesToPublish.isEmpty())
+      return CompletableFuture.completedFuture(null);
+
+    final List<BeatOutboxEntry> entriesInOrder = byForTime(entriesToPublish);
+    final List<BeatPublish> beatPublishes = entriesInOrder.stream()
+        .map(entry -> new BeatPublish(entry.getBeatIdentifier(), DateConverter.toIsoString(entry.getForTime()),
+            idempotencyKey(entry).toString(), entry.getKind().toPublishKind()))
+        .collect(Collectors.toList());
+    return beatPublisherService.publishBeatsAsync(tenantIdentifier, applicationIdentifier, beatPublishes)
+        .thenAccept(succeeded -> {
+          for (int i = 0; i < entriesInOrder.size(); i++) {
+            if (succeeded.get(i))
+              published(entriesInOrder.get(i));
+            else
+              entriesInOrder.get(i).setLastError("Publishing the batch with the beat for " + entriesInOrder.get(i).getForTime() + " failed.");
+          }
+        });
+  }
+
+  private CompletableFuture<Void> publishInOrder(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final List<BeatOutboxEntry> entries,
+      final int i) {
+    if (i >= entries.size())
+      return CompletableFuture.completedFuture(null);
+
+    final BeatOutboxEntry entry = entries.get(i);
+    if (skippedAsDuplicate(entry))
+      return publishInOrder(tenantIdentifier, applicationIdentifier, entries, i + 1);
+
+    return beatPublisherService.publishBeatAsync(
+        entry.getBeatIdentifier(), tenantIdentifier, applicationIdentifier, entry.getForTime(), entry.getKind())
+        .thenCompose(succeeded -> {
+          if (!succeeded) {
+            entries.subList(i + 1, entries.size()).forEach(waiting -> waiting.setLastError(
+                "Waiting for the beat for " + entry.getForTime() + " to be published."));
+            return CompletableFuture.completedFuture(null);
+          }
+          published(entry);
+          return publishInOrder(tenantIdentifier, applicationIdentifier, entries, i + 1);
+        });
+  }
+
+  private boolean skippedAsDuplicate(final BeatOutboxEntry entry) {
+    if (!recentlyPublished.isDuplicate(idempotencyKey(entry)))
+      return false;
+
+    logger.info("Not publishing {}, because it was already published.", entry);
+    entry.setState(BeatOutboxEntry.State.SENT);
+    return true;
+  }
+
+  private void published(final BeatOutboxEntry entry) {
+    entry.setState(BeatOutboxEntry.State.SENT);
+    recentlyPublished.add(idempotencyKey(entry));
+  }
+
+  private static UUID idempotencyKey(final BeatOutboxEntry entry) {
+    return IdempotencyKeys.of(
+        entry.getTenantIdentifier(), entry.getApplicationIdentifier(), entry.getKind(), entry.getBeatIdentifier(),
+        entry.getForTime());
+  }
+
+  //Entries which failed are tried again once their backoff has passed, rather than on the next poll.
+  private void record(final List<BeatOutboxEntry> entries) {
+    final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+    final List<BeatOutboxEntry> sentEntries = entries.stream()
+        .filter(entry -> entry.getState() == BeatOutboxEntry.State.SENT)
+        .collect(Collectors.toList());
+    final List<BeatOutboxEntry> failedEntries = entries.stream()
+        .filter(entry -> entry.getState() != BeatOutboxEntry.State.SENT)
+        .collect(Collectors.toList());
+    failedEntries.forEach(entry -> recordFailure(now, entry));
+    //The failed entries of one beat are retried together, so that they are claimed together and published in order.
+    failedEntries.stream()
+        .filter(entry -> entry.getState() == BeatOutboxEntry.State.FAILED)
+        .collect(Collectors.groupingBy(entry -> Arrays.asList(
+            entry.getTenantIdentifier(), entry.getApplicationIdentifier(), entry.getKind().name(), entry.getBeatIdentifier())))
+        .values()
+        .forEach(beatEntries -> {
+          final LocalDateTime nextAttempt = byForTime(beatEntries).get(0).getNextAttempt();
+          beatEntries.forEach(entry -> entry.setNextAttempt(nextAttempt));
+        });
+
+    try {
+      transactionTemplate.execute(status -> {
+        beatOutboxRepository.markSent(sentEntries, now);
+        beatOutboxRepository.markFailed(failedEntries);
+        return null;
+      });
+    }
+    catch (final DataAccessException e) {
+      logger.warn("Recording the outcome of {} outbox entries failed. They will be published again once their claim runs out.",
+          entries.size(), e);
+      return;
+    }
+    sent.addAndGet(sentEntries.size());
+    failed.addAndGet(failedEntries.size());
+
+    dead.addAndGet(failedEntries.stream().filter(entry -> entry.getState() == BeatOutboxEntry.State.DEAD).count());
+
+    failedEntries.stream()
+        .filter(entry -> entry.getState() == BeatOutboxEntry.State.FAILED)
+        .map(BeatOutboxEntry::getNextAttempt)
+        .min(Comparator.naturalOrder())
+        .ifPresent(earliest -> schedule(ChronoUnit.MILLIS.between(now, earliest)));
+  }
+
+  private void recordFailure(final LocalDateTime now, final BeatOutboxEntry entry) {
+    final int consecutiveFailures = entry.getConsecutiveFailures() == Integer.MAX_VALUE
+        ? Integer.MAX_VALUE
+        : entry.getConsecutiveFailures() + 1;
+    final long delay = RetryBackoff.delay(
+        consecutiveFailures,
+        properties.getRetryInitialBackoff(),
+        properties.getRetryMaxBackoff(),
+        ThreadLocalRandom.current().nextDouble());
+    entry.setConsecutiveFailures(consecutiveFailures);
+    if (entry.getLastError() == null)
+      entry.setLastError("Publishing the beat for " + entry.getForTime() + " failed.");
+    if (consecutiveFailures >= properties.getOutboxMaxAttempts()) {
+      entry.setState(BeatOutboxEntry.State.DEAD);
+      entry.setNextAttempt(now);
+      logger.warn("{} failed to publish {} times in a row, and is given up on. The last error was: {}",
+          entry, consecutiveFailures, entry.getLastError());
+      return;
+    }
+    entry.setState(BeatOutboxEntry.State.FAILED);
+    entry.setNextAttempt(now.plus(delay, ChronoUnit.MILLIS));
+    logger.info("{} failed to publish {} times in a row. Trying again in {}ms.", entry, consecutiveFailures, delay);
+  }
+
+  private static List<BeatOutboxEntry> byForTime(final Collection<BeatOutboxEntry> entries) {
+    return entries.stream()
+        .sorted(Comparator.comparing(BeatOutboxEntry::getForTime))
+        .collect(Collectors.toList());
+  }
+
+  private void execute(final Runnable task) {
+    try {
+      scheduler.execute(task);
+    }
+    catch (final RejectedExecutionException ignored) {
+      //Shutting down.  Whatever was claimed is published again once its claim runs out.
+    }
+  }
+
+  private void schedule(final long delay) {
+    try {
+      scheduler.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+    }
+    catch (final RejectedExecutionException ignored) {
+      //Shutting down.
+    }
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.<Metric<?>>asList(
+        new Metric<>("rhythm.outbox.inflight", inFlight.get()),
+        new Metric<>("rhythm.outbox.sent", sent.get()),
+        new Metric<>("rhythm.outbox.failed", failed.get()),
+        new Metric<>("rhythm.outbox.dead", dead.get()));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import com.google.gson.Gson;
+import java.time.LocalDateTime;
+import org.apache.fineract.cn.command.util.CommandConstants;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.lang.config.TenantHeaderFilter;
+import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+import org.apache.fineract.cn.rhythm.spi.v1.events.BeatPublishEvent;
+import org.apache.fineract.cn.rhythm.spi.v1.events.EventConstants;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers beats as BeatPublishEvent messages on rhythm's topic, for applications configured to receive beats over
+ * JMS.  Each message names its application in the EventConstants.APPLICATION_IDENTIFIER_PROPERTY property, so a
+ * listener subscribes with EventConstants.selectorPostPublishedBeat(applicationIdentifier) and the broker only hands
+ * it the beats of its own application.  The broker buffers beats for slow listeners, so a beat counts as published once the broker has it.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class BeatPublishEventSender {
+  private final Gson gson;
+  private final JmsTemplate jmsTemplate;
+  private final Logger logger;
+
+  @Autowired
+  public BeatPublishEventSender(
+      final @Qualifier(CommandConstants.SERIALIZER) Gson gson,
+      final JmsTemplate jmsTemplate,
+      @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
+    this.gson = gson;
+    this.jmsTemplate = jmsTemplate;
+    this.logger = logger;
+  }
+
+  /**
+   * @return true if the broker accepted the beat.
+   */
+  public boolean send(
+      final String beatIdentifier,
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final LocalDateTime timestamp,
+      final BeatOutboxEntry.Kind kind) {
+    final BeatPublishEvent event = new BeatPublishEvent(
+        applicationIdentifier, beatIdentifier, DateConverter.toIsoString(timestamp),
+        IdempotencyKeys.of(tenantIdentifier, applicationIdentifier, kind, beatIdentifier, timestamp).toString(),
+        kind.toPublishKind());
+    try {
+      jmsTemplate.convertAndSend(
+          gson.toJson(event),
+          message -> {
+            message.setStringProperty(TenantHeaderFilter.TENANT_HEADER, tenantIdentifier);
+            message.setStringProperty(EventConstants.SELECTOR_NAME, EventConstants.POST_PUBLISHEDBEAT);
+            message.setStringProperty(EventConstants.APPLICATION_IDENTIFIER_PROPERTY, applicationIdentifier);
+            return message;
+          });
+      return true;
+    }
+    catch (final JmsException e) {
+      logger.warn("Unable to send {} for tenant '{}' to the broker.", event, tenantIdentifier, e);
+      return false;
+    }
+  }
+}
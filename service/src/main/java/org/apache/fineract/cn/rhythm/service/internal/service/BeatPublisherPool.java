@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * The workers which publish beats.  The listener clients and identity are called synchronously, so a worker is busy
+ * for the whole of a publish, and at most rhythm.publisherThreads publishes are waiting for an answer at once.  Beats
+ * are handed to the workers through a bounded queue.  When the queue is full the beat is rejected rather than
+ * published on the submitting thread, so that the dispatcher and the throttle never block on a listener.  A rejected
+ * beat is recorded as failed, and stays in the outbox until its next attempt.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class BeatPublisherPool implements PublicMetrics {
+  private final ThreadPoolExecutor executor;
+  private final AtomicLong rejections = new AtomicLong();
+
+  @Autowired
+  public BeatPublisherPool(final RhythmProperties properties) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+        properties.getPublisherThreads(),
+        properties.getPublisherThreads(),
+        0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.getPublisherQueueCapacity()),
+        runnable -> new Thread(runnable, "beat-publisher-" + threadNumber.incrementAndGet()),
+        (runnable, executor) -> {
+          rejections.incrementAndGet();
+          throw new RejectedExecutionException("The beat publisher queue is full.");
+        });
+  }
+
+  /**
+   * @return a future which completes with the result of the task, or exceptionally if the queue is full.
+   */
+  public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    }
+    catch (final RejectedExecutionException e) {
+      final CompletableFuture<T> ret = new CompletableFuture<>();
+      ret.completeExceptionally(e);
+      return ret;
+    }
+  }
+
+  /**
+   * @throws RejectedExecutionException if the queue is full.
+   */
+  public void execute(final Runnable task) {
+    executor.execute(task);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.<Metric<?>>asList(
+        new Metric<>("rhythm.publisher.queue.depth", executor.getQueue().size()),
+        new Metric<>("rhythm.publisher.queue.remaining", executor.getQueue().remainingCapacity()),
+        new Metric<>("rhythm.publisher.workers", executor.getPoolSize()),
+        new Metric<>("rhythm.publisher.workers.active", executor.getActiveCount()),
+        new Metric<>("rhythm.publisher.rejections", rejections.get()),
+        new Metric<>("rhythm.publisher.completed", executor.getCompletedTaskCount()));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -18,26 +18,39 @@
  */
 package org.apache.fineract.cn.rhythm.service.internal.service;
 
+import feign.FeignException;
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.CacheRefreshedEvent;
 import com.netflix.discovery.EurekaClient;
 import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
 import org.apache.fineract.cn.api.context.AutoUserContext;
 import org.apache.fineract.cn.api.util.ApiFactory;
 import org.apache.fineract.cn.api.util.InvalidTokenException;
+import org.apache.fineract.cn.api.util.NotFoundException;
 import org.apache.fineract.cn.identity.api.v1.client.ApplicationPermissionAlreadyExistsException;
 import org.apache.fineract.cn.identity.api.v1.domain.Permission;
 import org.apache.fineract.cn.lang.ApplicationName;
 import org.apache.fineract.cn.lang.AutoTenantContext;
 import org.apache.fineract.cn.lang.DateConverter;
-import org.apache.fineract.cn.permittedfeignclient.service.ApplicationAccessTokenService;
 import org.apache.fineract.cn.rhythm.service.ServiceConstants;
 import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
 import org.apache.fineract.cn.rhythm.service.internal.identity.ApplicationPermissionRequestCreator;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
 import org.apache.fineract.cn.rhythm.spi.v1.PermittableGroupIds;
 import org.apache.fineract.cn.rhythm.spi.v1.client.BeatListener;
 import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
@@ -52,30 +65,62 @@ import org.springframework.stereotype.Service;
 @SuppressWarnings("WeakerAccess")
 @Service
 public class BeatPublisherService {
+  private static final Set<Integer> BATCH_REJECTED_STATUSES = new HashSet<>(Arrays.asList(404, 405, 415, 501));
+
   private final EurekaClient eurekaClient;
   private final ApplicationPermissionRequestCreator applicationPermissionRequestCreator;
-  private final ApplicationAccessTokenService applicationAccessTokenService;
+  private final AccessTokenCache accessTokenCache;
   private final ApplicationName rhythmApplicationName;
   private final ApiFactory apiFactory;
+  private final BeatPublisherPool beatPublisherPool;
+  private final CircuitBreakerService circuitBreakerService;
+  private final BeatPublishEventSender beatPublishEventSender;
+  private final PublishRateLimiter publishRateLimiter;
   private final RhythmProperties properties;
   private final Logger logger;
+  private final BeatListenerCache beatListenerCache;
+  private final BeatListenerSelector beatListenerSelector;
+  private final Set<String> batchesRejected = ConcurrentHashMap.newKeySet();
 
   @Autowired
   public BeatPublisherService(
        @SuppressWarnings("SpringJavaAutowiringInspection") final EurekaClient eurekaClient,
        @SuppressWarnings("SpringJavaAutowiringInspection") final ApplicationPermissionRequestCreator applicationPermissionRequestCreator,
-       @SuppressWarnings("SpringJavaAutowiringInspection") final ApplicationAccessTokenService applicationAccessTokenService,
+       final AccessTokenCache accessTokenCache,
        final ApplicationName rhythmApplicationName,
        final ApiFactory apiFactory,
+       final BeatPublisherPool beatPublisherPool,
+       final CircuitBreakerService circuitBreakerService,
+       final BeatPublishEventSender beatPublishEventSender,
+       final PublishRateLimiter publishRateLimiter,
        final RhythmProperties properties,
        @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
     this.eurekaClient = eurekaClient;
     this.applicationPermissionRequestCreator = applicationPermissionRequestCreator;
-    this.applicationAccessTokenService = applicationAccessTokenService;
+    this.accessTokenCache = accessTokenCache;
     this.rhythmApplicationName = rhythmApplicationName;
     this.apiFactory = apiFactory;
+    this.beatPublisherPool = beatPublisherPool;
+    this.circuitBreakerService = circuitBreakerService;
+    this.beatPublishEventSender = beatPublishEventSender;
+    this.publishRateLimiter = publishRateLimiter;
     this.properties = properties;
     this.logger = logger;
+    this.beatListenerCache = new BeatListenerCache(
+        homePageUrl -> apiFactory.create(BeatListener.class, homePageUrl),
+        properties.getBeatListenerCacheSize());
+    this.beatListenerSelector = new BeatListenerSelector(
+        properties.getListenerFailuresBeforeEjection(),
+        properties.getListenerEjectionTime(),
+        Clock.systemUTC());
+    eurekaClient.registerEventListener(event -> {
+      if (event instanceof CacheRefreshedEvent) {
+        final Set<String> registeredHomePageUrls = registeredHomePageUrls();
+        beatListenerCache.retainOnly(registeredHomePageUrls);
+        beatListenerSelector.retainOnly(registeredHomePageUrls);
+        batchesRejected.retainAll(registeredHomePageUrls);
+      }
+    });
   }
 
   /**
@@ -135,37 +180,187 @@ public class BeatPublisherService {
           final String tenantIdentifier,
           final String applicationIdentifier,
           final LocalDateTime timestamp) {
-    final BeatPublish beatPublish = new BeatPublish(beatIdentifier, DateConverter.toIsoString(timestamp));
-    logger.info("Attempting publish {} with timestamp {} under user {}.", beatPublish, timestamp, properties.getUser());
+    return publishBeatAsync(beatIdentifier, tenantIdentifier, applicationIdentifier, timestamp, BeatOutboxEntry.Kind.BEAT)
+        .join();
+  }
+
+  /**
+   * Like publishBeat, but returns without waiting for the listener to answer.  If the publish rate limit has been
+   * reached, the beat waits for its turn first.  Timers are published the same way as beats, but with their own
+   * idempotency keys.
+   *
+   * @return a future which completes with true if the beat was published.  It never completes exceptionally.
+   */
+  @SuppressWarnings("WeakerAccess") //Access is public for mocking in component test.
+  public CompletableFuture<Boolean> publishBeatAsync(
+          final String beatIdentifier,
+          final String tenantIdentifier,
+          final String applicationIdentifier,
+          final LocalDateTime timestamp,
+          final BeatOutboxEntry.Kind kind) {
+    return publishRateLimiter.acquire(applicationIdentifier, 1)
+        .thenCompose(x -> publishBeatNow(beatIdentifier, tenantIdentifier, applicationIdentifier, timestamp, kind))
+        .exceptionally(e -> notPublished(applicationIdentifier, "beat '" + beatIdentifier + "' for " + timestamp, e));
+  }
+
+  private CompletableFuture<Boolean> publishBeatNow(
+          final String beatIdentifier,
+          final String tenantIdentifier,
+          final String applicationIdentifier,
+          final LocalDateTime timestamp,
+          final BeatOutboxEntry.Kind kind) {
+    if (properties.getTransport(applicationIdentifier) == RhythmProperties.BeatTransport.JMS)
+      return CompletableFuture.completedFuture(
+          beatPublishEventSender.send(beatIdentifier, tenantIdentifier, applicationIdentifier, timestamp, kind));
+
+    final BeatPublish beatPublish = new BeatPublish(beatIdentifier, DateConverter.toIsoString(timestamp),
+        IdempotencyKeys.of(tenantIdentifier, applicationIdentifier, kind, beatIdentifier, timestamp).toString(),
+        kind.toPublishKind());
+    return send(tenantIdentifier, applicationIdentifier, false, beatListener -> beatListener.publishBeat(beatPublish),
+        "beat '" + beatIdentifier + "' for " + beatPublish.getForTime());
+  }
 
-    final List<InstanceInfo> applicationsByName = eurekaClient.getApplication(applicationIdentifier).getInstances();
-    if (applicationsByName.isEmpty())
+  /**
+   * Publish several beats of one tenant to the application in one request per rhythm.publishBatchSize beats.  Only
+   * call this for applications which acceptsBatches.  Each beat in a batch counts against the publish rate limit.
+   *
+   * @return a future which completes with whether each of the beats was published, in the order they were given.  The
+   * beats of one request are published or not together.  It never completes exceptionally.
+   */
+  @SuppressWarnings("WeakerAccess") //Access is public for mocking in component test.
+  public CompletableFuture<List<Boolean>> publishBeatsAsync(
+          final String tenantIdentifier,
+          final String applicationIdentifier,
+          final List<BeatPublish> beatPublishes) {
+    final List<CompletableFuture<Boolean>> batches = new ArrayList<>();
+    for (int i = 0; i < beatPublishes.size(); i += properties.getPublishBatchSize()) {
+      final List<BeatPublish> batch
+          = beatPublishes.subList(i, Math.min(i + properties.getPublishBatchSize(), beatPublishes.size()));
+      batches.add(publishRateLimiter.acquire(applicationIdentifier, batch.size())
+          .thenCompose(x -> send(tenantIdentifier, applicationIdentifier, true,
+              beatListener -> beatListener.publishBeats(batch), "batch of " + batch.size() + " beats"))
+          .exceptionally(e -> notPublished(applicationIdentifier, "batch of " + batch.size() + " beats", e)));
+    }
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[batches.size()]))
+        .thenApply(x -> {
+          final List<Boolean> ret = new ArrayList<>(beatPublishes.size());
+          for (int i = 0; i < beatPublishes.size(); i++)
+            ret.add(batches.get(i / properties.getPublishBatchSize()).join());
+          return ret;
+        });
+  }
+
+  /**
+   * @return true if every registered instance of the application advertises that it accepts batches of beats, and
+   * none has turned out not to.
+   */
+  @SuppressWarnings("WeakerAccess") //Access is public for mocking in component test.
+  public boolean acceptsBatches(final String applicationIdentifier) {
+    if (properties.getTransport(applicationIdentifier) != RhythmProperties.BeatTransport.HTTP)
       return false;
 
-    final InstanceInfo beatListenerService = applicationsByName.get(0);
-    final BeatListener beatListener = apiFactory.create(BeatListener.class, beatListenerService.getHomePageUrl());
+    final Application application = eurekaClient.getApplication(applicationIdentifier);
+    return application != null
+        && !application.getInstances().isEmpty()
+        && application.getInstances().stream().allMatch(instance ->
+            "true".equals(instance.getMetadata().get(BeatListener.PUBLISH_BEATS_METADATA_KEY))
+                && !batchesRejected.contains(instance.getHomePageUrl()));
+  }
 
-    try (final AutoTenantContext ignored = new AutoTenantContext(tenantIdentifier)) {
-      final String accessToken;
-      try {
-        accessToken = applicationAccessTokenService.getAccessToken(
-                properties.getUser(), tenantIdentifier);
+  //The feign clients block, so the request, the eureka lookup and fetching the access token all run on the publisher
+  //pool rather than on the thread which asked for the publish.
+  private CompletableFuture<Boolean> send(
+          final String tenantIdentifier,
+          final String applicationIdentifier,
+          final boolean batch,
+          final Consumer<BeatListener> request,
+          final String description) {
+    return beatPublisherPool.submit(() -> sendNow(tenantIdentifier, applicationIdentifier, batch, request, description));
+  }
+
+  //Mostly, the publisher pool rejected the publish because its queue is full.  It is tried again from the outbox.
+  private boolean notPublished(final String applicationIdentifier, final String description, final Throwable e) {
+    logger.info("Could not publish {} to application '{}' now. {} was thrown.", description, applicationIdentifier, e);
+    return false;
+  }
+
+  private boolean sendNow(
+          final String tenantIdentifier,
+          final String applicationIdentifier,
+          final boolean batch,
+          final Consumer<BeatListener> request,
+          final String description) {
+    if (!circuitBreakerService.tryAcquire(applicationIdentifier)) {
+      logger.debug("Deferring publish of {} because the circuit breaker for application '{}' is open.", description, applicationIdentifier);
+      return false;
+    }
+    logger.info("Attempting publish of {} under user {}.", description, properties.getUser());
+
+    final Application application = eurekaClient.getApplication(applicationIdentifier);
+    if (application == null || application.getInstances().isEmpty()) {
+      circuitBreakerService.failed(applicationIdentifier);
+      return false;
+    }
+
+    final String accessToken;
+    try {
+      accessToken = accessTokenCache.getAccessToken(tenantIdentifier);
+    }
+    catch (final Exception e) {
+      logger.warn("Unable to publish {} to application '{}' for tenant '{}', " +
+              "because access token could not be acquired from identity. Exception was {}.",
+              description, applicationIdentifier, tenantIdentifier, e);
+      circuitBreakerService.released(applicationIdentifier);
+      return false;
+    }
+
+    //If an instance fails, the request is sent to the next one, up to publishAttempts instances.
+    final List<String> homePageUrls = beatListenerSelector.select(applicationIdentifier,
+        application.getInstances().stream().map(InstanceInfo::getHomePageUrl).collect(Collectors.toList()));
+    final List<String> attempts = homePageUrls.subList(0, Math.min(homePageUrls.size(), properties.getPublishAttempts()));
+    for (final String homePageUrl : attempts) {
+      final BeatListener beatListener = beatListenerCache.get(homePageUrl);
+      beatListenerSelector.started(homePageUrl);
+      try (final AutoTenantContext ignored = new AutoTenantContext(tenantIdentifier)) {
+        try (final AutoUserContext ignored2 = new AutoUserContext(properties.getUser(), accessToken)) {
+          request.accept(beatListener);
+          beatListenerSelector.succeeded(homePageUrl);
+          circuitBreakerService.succeeded(applicationIdentifier);
+          return true;
+        }
       }
-      catch (final Exception e) {
-        logger.warn("Unable to publish beat '{}' to application '{}' for tenant '{}', " +
-                "because access token could not be acquired from identity. Exception was {}.",
-                beatIdentifier, applicationIdentifier, tenantIdentifier, e);
+      catch (final InvalidTokenException e) {
+        //Another instance would reject the token too.
+        beatListenerSelector.released(homePageUrl);
+        accessTokenCache.evict(tenantIdentifier, accessToken);
+        circuitBreakerService.released(applicationIdentifier);
+        logger.warn("Unable to publish {} to application '{}' (uri: '{}') for tenant '{}' with user '{}'" +
+                "because the access token was rejected", description, applicationIdentifier, homePageUrl, tenantIdentifier, properties.getUser(), e);
         return false;
       }
-      try (final AutoUserContext ignored2 = new AutoUserContext(properties.getUser(), accessToken)) {
-        beatListener.publishBeat(beatPublish);
-        return true;
+      catch (final Throwable e) {
+        if (batch && rejectsBatches(e)) {
+          //The instance advertised batches, but doesn't take them.  It gets single publishes from now on.
+          batchesRejected.add(homePageUrl);
+        }
+        beatListenerSelector.failed(homePageUrl);
+        logger.warn("Unable to publish {} to application '{}' (uri: '{}') for tenant '{}' with user '{}'" +
+                "because exception was thrown in publish", description, applicationIdentifier, homePageUrl, tenantIdentifier, properties.getUser(), e);
       }
     }
-    catch (final Throwable e) {
-      logger.warn("Unable to publish beat '{}' to application '{}' (uri: '{}') for tenant '{}' with user '{}'" +
-              "because exception was thrown in publish", beatIdentifier, applicationIdentifier,beatListenerService.getHomePageUrl(), tenantIdentifier, properties.getUser(), e);
-      return false;
-    }
+    circuitBreakerService.failed(applicationIdentifier);
+    return false;
+  }
+
+  private static boolean rejectsBatches(final Throwable e) {
+    return e instanceof NotFoundException
+        || (e instanceof FeignException && BATCH_REJECTED_STATUSES.contains(((FeignException) e).status()));
+  }
+
+  private Set<String> registeredHomePageUrls() {
+    return eurekaClient.getApplications().getRegisteredApplications().stream()
+        .flatMap(application -> application.getInstances().stream())
+        .map(InstanceInfo::getHomePageUrl)
+        .collect(Collectors.toSet());
   }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.rhythm.api.v1.domain.CircuitBreaker;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * A circuit breaker per application beats are published to.  After circuitBreakerFailureThreshold publishes to an
+ * application failed in a row, its breaker opens, and beats for it are deferred without being sent.  Once
+ * circuitBreakerOpenTime has passed, the breaker is half open: up to circuitBreakerHalfOpenProbes beats are sent.  If
+ * one of them is published the breaker closes, if one fails it opens again.
+ *
+ * @author Myrle Krantz
+ */
+@Service
+public class CircuitBreakerService {
+  private static class Breaker {
+    private CircuitBreaker.State state = CircuitBreaker.State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long retryAt = 0;
+    private int probesInFlight = 0;
+  }
+
+  private final RhythmProperties properties;
+  private final Clock clock;
+  private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+  @Autowired
+  public CircuitBreakerService(final RhythmProperties properties) {
+    this(properties, Clock.systemUTC());
+  }
+
+  CircuitBreakerService(final RhythmProperties properties, final Clock clock) {
+    this.properties = properties;
+    this.clock = clock;
+  }
+
+  /**
+   * @return true if a beat may be published to the application.  If so, exactly one of succeeded, failed or released
+   * must be called once the publish is over.
+   */
+  public boolean tryAcquire(final String applicationIdentifier) {
+    final Breaker breaker = breaker(applicationIdentifier);
+    synchronized (breaker) {
+      switch (breaker.state) {
+        case OPEN:
+          if (clock.millis() < breaker.retryAt)
+            return false;
+          breaker.state = CircuitBreaker.State.HALF_OPEN;
+          breaker.probesInFlight = 0;
+          //fall through
+        case HALF_OPEN:
+          if (breaker.probesInFlight >= properties.getCircuitBreakerHalfOpenProbes())
+            return false;
+          breaker.probesInFlight++;
+          return true;
+        case CLOSED:
+        default:
+          return true;
+      }
+    }
+  }
+
+  public void succeeded(final String applicationIdentifier) {
+    final Breaker breaker = breaker(applicationIdentifier);
+    synchronized (breaker) {
+      breaker.state = CircuitBreaker.State.CLOSED;
+      breaker.consecutiveFailures = 0;
+      breaker.probesInFlight = 0;
+    }
+  }
+
+  public void failed(final String applicationIdentifier) {
+    final Breaker breaker = breaker(applicationIdentifier);
+    synchronized (breaker) {
+      breaker.consecutiveFailures++;
+      if (breaker.state == CircuitBreaker.State.HALF_OPEN
+          || breaker.consecutiveFailures >= properties.getCircuitBreakerFailureThreshold()) {
+        breaker.state = CircuitBreaker.State.OPEN;
+        breaker.retryAt = clock.millis() + properties.getCircuitBreakerOpenTime();
+        breaker.probesInFlight = 0;
+      }
+    }
+  }
+
+  //For publishes which failed through no fault of the application, for example because no access token was available.
+  public void released(final String applicationIdentifier) {
+    final Breaker breaker = breaker(applicationIdentifier);
+    synchronized (breaker) {
+      if (breaker.state == CircuitBreaker.State.HALF_OPEN && breaker.probesInFlight > 0)
+        breaker.probesInFlight--;
+    }
+  }
+
+  public List<CircuitBreaker> findAll() {
+    return breakers.entrySet().stream()
+        .map(entry -> {
+          final Breaker breaker = entry.getValue();
+          synchronized (breaker) {
+            return new CircuitBreaker(
+                entry.getKey(),
+                breaker.state,
+                breaker.consecutiveFailures,
+                breaker.state == CircuitBreaker.State.OPEN ? toIsoString(breaker.retryAt) : null);
+          }
+        })
+        .sorted(Comparator.comparing(CircuitBreaker::getApplicationIdentifier))
+        .collect(Collectors.toList());
+  }
+
+  private Breaker breaker(final String applicationIdentifier) {
+    return breakers.computeIfAbsent(applicationIdentifier, x -> new Breaker());
+  }
+
+  private static String toIsoString(final long millis) {
+    return DateConverter.toIsoString(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+  }
+}
@@ -18,27 +18,149 @@
  */
 package org.apache.fineract.cn.rhythm.service.internal.service;
 
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
 import org.apache.fineract.cn.rhythm.service.internal.mapper.ClockOffsetMapper;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
+ * Clock offsets are read for every beat checked, but change rarely, so they are cached per tenant.  The cache is
+ * bounded, least recently used tenants are dropped first, and entries expire so that changes made through another
+ * instance of rhythm are seen eventually.
+ *
  * @author Myrle Krantz
  */
 @Service
-public class ClockOffsetService {
+public class ClockOffsetService implements PublicMetrics {
+  private static class CachedClockOffset {
+    private final ClockOffset clockOffset;
+    private final long loadedAt;
+
+    private CachedClockOffset(final ClockOffset clockOffset, final long loadedAt) {
+      this.clockOffset = clockOffset;
+      this.loadedAt = loadedAt;
+    }
+  }
+
   final private ClockOffsetRepository clockOffsetRepository;
+  final private long expiry;
+  final private Map<String, CachedClockOffset> cache;
+  final private AtomicLong hits = new AtomicLong();
+  final private AtomicLong misses = new AtomicLong();
 
   @Autowired
-  public ClockOffsetService(final ClockOffsetRepository clockOffsetRepository) {
+  public ClockOffsetService(
+      final ClockOffsetRepository clockOffsetRepository,
+      final RhythmProperties properties) {
     this.clockOffsetRepository = clockOffsetRepository;
+    this.expiry = properties.getClockOffsetCacheExpiry();
+    final int maximumSize = properties.getClockOffsetCacheSize();
+    this.cache = new LinkedHashMap<String, CachedClockOffset>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedClockOffset> eldest) {
+        return size() > maximumSize;
+      }
+    };
   }
 
   public ClockOffset findByTenantIdentifier(final String tenantIdentifier) {
-    return clockOffsetRepository.findByTenantIdentifier(tenantIdentifier)
+    final long now = Clock.systemUTC().millis();
+    synchronized (cache) {
+      final CachedClockOffset cached = cache.get(tenantIdentifier);
+      if (cached != null && now - cached.loadedAt < expiry) {
+        hits.incrementAndGet();
+        return cached.clockOffset;
+      }
+    }
+
+    misses.incrementAndGet();
+    final ClockOffset ret = clockOffsetRepository.findByTenantIdentifier(tenantIdentifier)
         .map(ClockOffsetMapper::map)
         .orElseGet(ClockOffset::new); //If none is set, use 0,0,0
+    synchronized (cache) {
+      cache.put(tenantIdentifier, new CachedClockOffset(ret, now));
+    }
+    return ret;
+  }
+
+  /**
+   * Look up the clock offsets of many tenants at once.  Tenants which aren't cached are read in one query.
+   */
+  public Map<String, ClockOffset> findByTenantIdentifiers(final Collection<String> tenantIdentifiers) {
+    final long now = Clock.systemUTC().millis();
+    final Map<String, ClockOffset> ret = new HashMap<>();
+    final List<String> tenantsToRead = new ArrayList<>();
+    synchronized (cache) {
+      tenantIdentifiers.forEach(tenantIdentifier -> {
+        final CachedClockOffset cached = cache.get(tenantIdentifier);
+        if (cached != null && now - cached.loadedAt < expiry)
+          ret.put(tenantIdentifier, cached.clockOffset);
+        else
+          tenantsToRead.add(tenantIdentifier);
+      });
+    }
+    hits.addAndGet(ret.size());
+    if (tenantsToRead.isEmpty())
+      return ret;
+
+    misses.addAndGet(tenantsToRead.size());
+    final Map<String, ClockOffset> read = new HashMap<>();
+    clockOffsetRepository.findByTenantIdentifierIn(tenantsToRead)
+        .forEach(x -> read.put(x.getTenantIdentifier(), ClockOffsetMapper.map(x)));
+    tenantsToRead.forEach(x -> read.putIfAbsent(x, new ClockOffset())); //If none is set, use 0,0,0
+    synchronized (cache) {
+      read.forEach((tenantIdentifier, clockOffset) -> cache.put(tenantIdentifier, new CachedClockOffset(clockOffset, now)));
+    }
+    ret.putAll(read);
+    return ret;
+  }
+
+  /**
+   * Drop the cached clock offset of the tenant.  If called inside a transaction, it is dropped again once the
+   * transaction completes, so that a lookup racing with the change can't keep the old offset cached.
+   */
+  public void evict(final String tenantIdentifier) {
+    evictNow(tenantIdentifier);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCompletion(final int status) {
+          evictNow(tenantIdentifier);
+        }
+      });
+    }
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    final int size;
+    synchronized (cache) {
+      size = cache.size();
+    }
+    return Arrays.<Metric<?>>asList(
+        new Metric<>("rhythm.clockoffset.cache.hits", hits.get()),
+        new Metric<>("rhythm.clockoffset.cache.misses", misses.get()),
+        new Metric<>("rhythm.clockoffset.cache.size", size));
+  }
+
+  private void evictNow(final String tenantIdentifier) {
+    synchronized (cache) {
+      cache.remove(tenantIdentifier);
+    }
   }
-}
\ No newline at end of file
+}
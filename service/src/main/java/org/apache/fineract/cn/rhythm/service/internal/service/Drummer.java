@@ -18,128 +18,292 @@
  */
 package org.apache.fineract.cn.rhythm.service.internal.service;
 
+import java.sql.Timestamp;
 import java.time.Clock;
 import java.time.LocalDateTime;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.apache.fineract.cn.rhythm.api.v1.domain.Beat;
 import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
 import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
 import org.apache.fineract.cn.rhythm.service.internal.mapper.BeatMapper;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatEntity;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxRepository;
 import org.apache.fineract.cn.rhythm.service.internal.repository.BeatRepository;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetEntity;
+import org.apache.fineract.cn.rhythm.service.internal.repository.DueBeat;
+import org.apache.fineract.cn.rhythm.service.internal.schedule.BeatSchedule;
+import org.apache.fineract.cn.rhythm.service.internal.schedule.BeatSpread;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.dao.PessimisticLockingFailureException;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Myrle Krantz
  */
 @Component
 public class Drummer {
-  private final IdentityPermittableGroupService identityPermittableGroupService;
-  private final BeatPublisherService beatPublisherService;
+  private final BeatOutboxDispatcher beatOutboxDispatcher;
+  private final BeatOutboxRepository beatOutboxRepository;
   private final BeatRepository beatRepository;
   private final ClockOffsetService clockOffsetService;
+  private final RhythmProperties properties;
+  private final TransactionTemplate transactionTemplate;
   private final Logger logger;
 
+  private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+  //Postgres accepts at most 32767 bind parameters in one statement, and the beats found due by the timing wheel are
+  //read by id.
+  private static final int MAX_IDS_PER_STATEMENT = 10_000;
+  //A beat with a schedule can miss a beat every minute, so even FIRE_ALL publishes at most this many of its missed
+  //beats.  It matches the largest catch up limit a beat may have.
+  static final int SCHEDULED_CATCH_UP_LIMIT = 366;
+
   @Autowired
   public Drummer(
-      final IdentityPermittableGroupService identityPermittableGroupService,
-      final BeatPublisherService beatPublisherService,
+      final BeatOutboxDispatcher beatOutboxDispatcher,
+      final BeatOutboxRepository beatOutboxRepository,
       final BeatRepository beatRepository,
       final ClockOffsetService clockOffsetService,
+      final RhythmProperties properties,
+      final PlatformTransactionManager transactionManager,
       @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
-    this.identityPermittableGroupService = identityPermittableGroupService;
-    this.beatPublisherService = beatPublisherService;
+    this.beatOutboxDispatcher = beatOutboxDispatcher;
+    this.beatOutboxRepository = beatOutboxRepository;
     this.beatRepository = beatRepository;
     this.clockOffsetService = clockOffsetService;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
     this.logger = logger;
   }
 
-  @Scheduled(initialDelayString = "${rhythm.beatCheckRate}", fixedRateString = "${rhythm.beatCheckRate}")
-  @Transactional
-  public synchronized void checkForBeatsNeeded() {
+  /**
+   * Advances all beats which were due before now, and hands the beats they missed to the dispatcher.  Due beats are
+   * read in windows along the (next_beat, id) index, each window is put in tenant fair order, and then claimed in
+   * chunks, each in its own transaction.  Beats locked by another instance of rhythm are skipped rather than waited
+   * for, so that several instances can share the due beats between them without any beat being published twice.
+   *
+   * @return the beats which were checked, with their next beat advanced.
+   */
+  public List<DueBeat> checkForBeatsNeeded() {
     logger.info("checkForBeatsNeeded begin.");
-    //In it's current form this function cannot be run in multiple instances of the same service.  We need to get
-    //locking on selected entries corrected here, before this will work.
     try {
       final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
-      //Get beats from the last two hours in case restart/start happens close to hour begin.
-      final Stream<BeatEntity> beats = beatRepository.findByNextBeatBefore(now);
-      beats.forEach((beat) -> {
-        final boolean applicationHasRequestForAccessPermission
-             = identityPermittableGroupService.checkThatApplicationHasRequestForAccessPermission(
-             beat.getTenantIdentifier(), beat.getApplicationIdentifier());
-        if (!applicationHasRequestForAccessPermission) {
-          logger.info("Not checking if beat {} needs publishing, because application access needed to publish is not available.", beat);
-        }
-        else {
-          logger.info("Checking if beat {} needs publishing.", beat);
-          final LocalDateTime nextBeat = checkBeatForPublish(
-               now,
-               beat.getBeatIdentifier(),
-               beat.getTenantIdentifier(),
-               beat.getApplicationIdentifier(),
-               beat.getAlignmentHour(),
-               beat.getNextBeat());
-          if (!nextBeat.equals(beat.getNextBeat())) {
-            beat.setNextBeat(nextBeat);
-            beatRepository.save(beat);
-          }
-          logger.info("Beat updated to {}.", beat);
-        }
-      });
+      final List<DueBeat> ret = new ArrayList<>();
+      LocalDateTime afterNextBeat = SCAN_START;
+      long afterId = 0L;
+      List<DueBeat> window;
+      do {
+        window = beatRepository.findDueByNextBeatBefore(
+            Timestamp.valueOf(now), Timestamp.valueOf(afterNextBeat), afterId, properties.getClaimWindowSize())
+            .stream()
+            .map(DueBeat::fromRow)
+            .collect(Collectors.toList());
+        if (window.isEmpty())
+          break;
+
+        //The position is taken before the window is reordered, since claiming advances the next beat of the claimed
+        //beats past now, and the next window starts after the last row of this one.
+        final DueBeat last = window.get(window.size() - 1);
+        afterNextBeat = last.getNextBeat();
+        afterId = last.getId();
 
+        final List<Long> dueBeatIds = fairOrder(window).stream()
+            .map(DueBeat::getId)
+            .collect(Collectors.toList());
+        for (int i = 0; i < dueBeatIds.size(); i += properties.getClaimChunkSize()) {
+          final List<Long> chunk = dueBeatIds.subList(i, Math.min(i + properties.getClaimChunkSize(), dueBeatIds.size()));
+          ret.addAll(claimAndCheck(now, chunk));
+        }
+      } while (window.size() == properties.getClaimWindowSize());
+      return ret;
     }
-    catch (final PessimisticLockingFailureException e) {
+    catch (final DataAccessException e) {
       if (e.getMessage() != null && e.getMessage().contains("relation \"khepri_beats\" does not exist")) {
         logger.info("Exception in check for scheduled beats as table khepri_beats does not exist. Probably cause initialize hasn't been called yet.");
       }
       else {
-        logger.warn("PessimisticLockingFailureException in check for scheduled beats", e);
+        logger.warn("DataAccessException in check for scheduled beats", e);
       }
+      return Collections.emptyList();
+    }
+    finally {
+      logger.info("checkForBeatsNeeded end.");
     }
-    logger.info("checkForBeatsNeeded end.");
+  }
+
+  /**
+   * Advances the given beats, which the timing wheel found due, and hands the beats they missed to the dispatcher.  The
+   * beats are read in windows, put in tenant fair order, and claimed in chunks, just like in the scan.  A window or a
+   * chunk which can't be read or claimed is handed to retry, so that its beats aren't lost until the next scan.
+   *
+   * @return the beats which were checked, with their next beat advanced.
+   */
+  public List<DueBeat> checkForBeatsNeeded(final Collection<Long> beatIds, final Consumer<List<Long>> retry) {
+    final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+    final List<Long> ids = new ArrayList<>(beatIds);
+    final List<DueBeat> ret = new ArrayList<>();
+    final int windowSize = Math.min(properties.getClaimWindowSize(), MAX_IDS_PER_STATEMENT);
+    for (int i = 0; i < ids.size(); i += windowSize) {
+      final List<Long> windowIds = ids.subList(i, Math.min(i + windowSize, ids.size()));
+      final List<Long> dueBeatIds;
+      try {
+        dueBeatIds = fairOrder(beatRepository.findDueByIdIn(windowIds).stream()
+            .map(DueBeat::fromRow)
+            .collect(Collectors.toList())).stream()
+            .map(DueBeat::getId)
+            .collect(Collectors.toList());
+      }
+      catch (final DataAccessException e) {
+        logger.warn("DataAccessException reading {} beats found due by the timing wheel", windowIds.size(), e);
+        retry.accept(windowIds);
+        continue;
+      }
+      for (int j = 0; j < dueBeatIds.size(); j += properties.getClaimChunkSize()) {
+        final List<Long> chunk = dueBeatIds.subList(j, Math.min(j + properties.getClaimChunkSize(), dueBeatIds.size()));
+        try {
+          ret.addAll(claimAndCheck(now, chunk));
+        }
+        catch (final DataAccessException e) {
+          logger.warn("DataAccessException claiming {} beats found due by the timing wheel", chunk.size(), e);
+          retry.accept(chunk);
+        }
+      }
+    }
+    return ret;
   }
 
   @Transactional
-  public synchronized void realignAllBeatsForTenant(
+  public synchronized List<BeatEntity> realignAllBeatsForTenant(
       final String tenantIdentifier,
       final ClockOffsetEntity oldClockOffset,
       final ClockOffsetEntity newClockOffset)
   {
-    final Stream<BeatEntity> beatsToAdjust = beatRepository.findByTenantIdentifier(tenantIdentifier);
+    final List<BeatEntity> beatsToAdjust = beatRepository.findByTenantIdentifier(tenantIdentifier)
+        .collect(Collectors.toList());
     beatsToAdjust.forEach(x -> {
       //Need to subtract old clock offset, because for large clock offsets and large alignments,
       //time can "skip" into the next day through realignment.
+      final long spreadOffset = spreadOffset(
+          x.getTenantIdentifier(), x.getApplicationIdentifier(), x.getBeatIdentifier(), x.getSpreadSeconds());
       final LocalDateTime oldBeatNextBeat = x.getNextBeat()
           .minusHours(oldClockOffset.getHours())
           .minusMinutes(oldClockOffset.getMinutes())
-          .minusSeconds(oldClockOffset.getSeconds());
-      x.setNextBeat(BeatMapper.alignDateTime(
-          oldBeatNextBeat,
-          x.getAlignmentHour(),
-          newClockOffset));
+          .minusSeconds(oldClockOffset.getSeconds() + spreadOffset);
+      //A beat with a schedule fires at the same time of the tenant's day as before.
+      if (x.getPeriodMinutes() != null || x.getCronExpression() != null)
+        x.setNextBeat(oldBeatNextBeat
+            .plusHours(newClockOffset.getHours())
+            .plusMinutes(newClockOffset.getMinutes())
+            .plusSeconds(newClockOffset.getSeconds() + spreadOffset));
+      else
+        x.setNextBeat(BeatMapper.alignDateTime(
+            oldBeatNextBeat,
+            x.getAlignmentHour(),
+            newClockOffset).plusSeconds(spreadOffset));
       beatRepository.save(x);
     });
+    return beatsToAdjust;
   }
 
-  private LocalDateTime checkBeatForPublish(
-      final LocalDateTime now,
-      final String beatIdentifier,
+  //The beats are locked only for as long as it takes to advance them and write their outbox entries.  The entries are
+  //handed to the dispatcher once that transaction has committed, so that publishing never holds a lock.
+  private List<DueBeat> claimAndCheck(final LocalDateTime now, final Collection<Long> beatIds) {
+    final List<BeatOutboxEntry> entries = new ArrayList<>();
+    final List<DueBeat> beats = transactionTemplate.execute(status -> {
+      final List<DueBeat> claimedBeats = fairOrder(beatRepository.claimByIdIn(beatIds).stream()
+          .map(DueBeat::fromRow)
+          .collect(Collectors.toList()));
+      entries.addAll(checkBeats(now, claimedBeats));
+      return claimedBeats;
+    });
+    beatOutboxDispatcher.dispatch(entries);
+    return beats;
+  }
+
+  //Tenants take turns, so that one tenant with many due beats doesn't hold up the beats of all the others.  Within a
+  //tenant, the beats which have been due the longest go first.
+  private List<DueBeat> fairOrder(final List<DueBeat> beats) {
+    final TenantFairQueue<DueBeat> queue = new TenantFairQueue<>(
+        DueBeat::getTenantIdentifier,
+        Comparator.comparing(DueBeat::getNextBeat).thenComparing(DueBeat::getId),
+        properties::getTenantWeight);
+    queue.addAll(beats);
+    return queue.drain();
+  }
+
+  //Each beat which is due is advanced past now, and an outbox entry is written for every missed beat the catch up
+  //policy publishes.  The entries are claimed by this instance until the end of their lease.  A beat is advanced
+  //whether or not its listener is up, so beats whose listener is down pile up in the outbox instead.  The catch up
+  //policy is applied to those too: older entries of the beat which haven't been published yet are dropped, so that
+  //no more than the policy's limit wait for the listener.
+  private List<BeatOutboxEntry> checkBeats(final LocalDateTime now, final List<DueBeat> beats) {
+    final LocalDateTime leaseUntil = now.plus(properties.getOutboxLease(), ChronoUnit.MILLIS);
+    final List<BeatOutboxEntry> entries = new ArrayList<>();
+    final Map<BeatOutboxEntry, Integer> latestToKeep = new LinkedHashMap<>();
+    final List<DueBeat> changedBeats = new ArrayList<>(beats.size());
+    for (final DueBeat beat : beats) {
+      final ClockOffset clockOffset = clockOffsetService.findByTenantIdentifier(beat.getTenantIdentifier());
+      final int catchUpLimit = catchUpLimit(beat.getCatchUpPolicy(), beat.getCatchUpLimit());
+      //A spread beat is checked as if it weren't spread, by moving it and now back by its offset.
+      final long spreadOffset = spreadOffset(
+          beat.getTenantIdentifier(), beat.getApplicationIdentifier(), beat.getBeatIdentifier(), beat.getSpreadSeconds());
+      final LocalDateTime unspreadNow = now.minusSeconds(spreadOffset);
+      final LocalDateTime unspreadNextBeat = beat.getNextBeat().minusSeconds(spreadOffset);
+      final int entriesBefore = entries.size();
+      final Consumer<LocalDateTime> publish = x -> entries.add(new BeatOutboxEntry(beat.getTenantIdentifier(),
+          beat.getApplicationIdentifier(), beat.getBeatIdentifier(), x.plusSeconds(spreadOffset), leaseUntil));
+      final Optional<BeatSchedule> schedule
+          = BeatSchedule.of(beat.getAlignmentHour(), beat.getPeriodMinutes(), beat.getCronExpression());
+      final LocalDateTime nextBeat = (schedule.isPresent()
+          ? checkScheduledBeatForPublishHelper(unspreadNow, unspreadNextBeat, schedule.get(), clockOffset, catchUpLimit, publish)
+          : checkBeatForPublishHelper(unspreadNow, beat.getAlignmentHour(), unspreadNextBeat, clockOffset, catchUpLimit, publish))
+          .plusSeconds(spreadOffset);
+      if (nextBeat.equals(beat.getNextBeat()))
+        continue;
+
+      if (catchUpLimit != Integer.MAX_VALUE && entries.size() > entriesBefore)
+        latestToKeep.put(entries.get(entriesBefore), catchUpLimit);
+      beat.setNextBeat(nextBeat);
+      changedBeats.add(beat);
+      logger.info("Beat updated to {}.", beat);
+    }
+
+    beatOutboxRepository.insert(entries);
+    beatOutboxRepository.deleteSuperseded(latestToKeep);
+    if (!changedBeats.isEmpty()) {
+      beatRepository.updateNextBeats(changedBeats);
+      logger.debug("Wrote {} next beats and {} outbox entries.", changedBeats.size(), entries.size());
+    }
+    return entries;
+  }
+
+  private long spreadOffset(
       final String tenantIdentifier,
       final String applicationIdentifier,
-      final Integer alignmentHour,
-      final LocalDateTime nextBeat) {
-    final ClockOffset clockOffset = clockOffsetService.findByTenantIdentifier(tenantIdentifier);
-    return checkBeatForPublishHelper(now, alignmentHour, nextBeat, clockOffset,
-            x -> beatPublisherService.publishBeat(beatIdentifier, tenantIdentifier, applicationIdentifier, x));
+      final String beatIdentifier,
+      final Integer spreadSeconds) {
+    return BeatSpread.offsetSeconds(tenantIdentifier, beatIdentifier,
+        spreadSeconds != null ? spreadSeconds : properties.getSpreadSeconds(applicationIdentifier));
   }
 
   //Helper is separated from original function so that it can be unit-tested separately from publishBeat.
@@ -148,17 +312,65 @@ public class Drummer {
           final Integer alignmentHour,
           final LocalDateTime nextBeat,
           final ClockOffset clockOffset,
-          final Predicate<LocalDateTime> publishSucceeded) {
-    LocalDateTime beatToPublish = nextBeat;
-    for (;
-         !beatToPublish.isAfter(now);
-         beatToPublish = incrementToAlignment(beatToPublish, alignmentHour, clockOffset))
-    {
-      if (!publishSucceeded.test(beatToPublish))
-        break;
+          final int catchUpLimit,
+          final Consumer<LocalDateTime> publish) {
+    if (nextBeat.isAfter(now))
+      return nextBeat;
+
+    //The missed beats are nextBeat, and then one per day starting at the first aligned time after it.  Counting them
+    //rather than stepping through them means that beats skipped by the catch up policy cost nothing.
+    final LocalDateTime firstAlignedBeat = incrementToAlignment(nextBeat, alignmentHour, clockOffset);
+    final long missedAlignedBeats = firstAlignedBeat.isAfter(now)
+        ? 0
+        : ChronoUnit.DAYS.between(firstAlignedBeat, now) + 1;
+    final long missedBeats = missedAlignedBeats + 1;
+    final long firstBeatToPublish = Math.max(0, missedBeats - catchUpLimit);
+
+    for (long i = firstBeatToPublish; i < missedBeats; i++)
+      publish.accept((i == 0) ? nextBeat : firstAlignedBeat.plusDays(i - 1));
+
+    return firstAlignedBeat.plusDays(missedAlignedBeats);
+  }
+
+  //The missed beats of a beat with a schedule are found by stepping through the schedule.  Only the last catchUpLimit
+  //of them, and never more than SCHEDULED_CATCH_UP_LIMIT, are kept while stepping.
+  static LocalDateTime checkScheduledBeatForPublishHelper(
+          final LocalDateTime now,
+          final LocalDateTime nextBeat,
+          final BeatSchedule schedule,
+          final ClockOffset clockOffset,
+          final int catchUpLimit,
+          final Consumer<LocalDateTime> publish) {
+    if (nextBeat.isAfter(now))
+      return nextBeat;
+
+    final int limit = Math.min(catchUpLimit, SCHEDULED_CATCH_UP_LIMIT);
+    final Deque<LocalDateTime> beatsToPublish = new ArrayDeque<>(limit);
+    LocalDateTime beat = nextBeat;
+    for (; !beat.isAfter(now); beat = schedule.next(beat, clockOffset)) {
+      if (beatsToPublish.size() >= limit)
+        beatsToPublish.removeFirst();
+      beatsToPublish.addLast(beat);
     }
 
-    return beatToPublish;
+    beatsToPublish.forEach(publish);
+    return beat;
+  }
+
+  static int catchUpLimit(final String catchUpPolicy, final Integer catchUpLimit) {
+    if (catchUpPolicy == null)
+      return Integer.MAX_VALUE;
+
+    switch (Beat.CatchUpPolicy.valueOf(catchUpPolicy)) {
+      case FIRE_LATEST_ONLY:
+        return 1;
+      case FIRE_LAST_N:
+        //Beats are rejected without a limit for this policy when they are created, so null is never expected here.
+        return (catchUpLimit == null) ? 1 : catchUpLimit;
+      case FIRE_ALL:
+      default:
+        return Integer.MAX_VALUE;
+    }
   }
 
   static LocalDateTime incrementToAlignment(
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+
+/**
+ * Idempotency keys for beat publishes.  The key is a name based UUID of the tenant, application, kind, beat and time,
+ * so every instance of rhythm derives the same key for the same publish, and a listener can recognize a beat it has
+ * already been sent.  A timer never gets the key of a beat with the same identifier.
+ *
+ * @author Myrle Krantz
+ */
+final class IdempotencyKeys {
+  private IdempotencyKeys() {
+  }
+
+  static UUID of(
+      final String tenantIdentifier,
+      final String applicationIdentifier,
+      final BeatOutboxEntry.Kind kind,
+      final String beatIdentifier,
+      final LocalDateTime forTime) {
+    //Identifiers can't contain a line break, so the parts can't run into each other.  Beats are named as they were
+    //before timers existed, so their keys don't change; timers have one more part, so they can't collide with a beat.
+    final String name = tenantIdentifier + "\n" + applicationIdentifier + "\n"
+        + (kind == BeatOutboxEntry.Kind.BEAT ? "" : kind.name() + "\n")
+        + beatIdentifier + "\n" + DateConverter.toIsoString(forTime);
+    return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+  }
+}
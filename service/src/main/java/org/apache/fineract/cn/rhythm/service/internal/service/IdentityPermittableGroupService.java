@@ -18,8 +18,16 @@
  */
 package org.apache.fineract.cn.rhythm.service.internal.service;
 
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ApplicationEntity;
 import org.apache.fineract.cn.rhythm.service.internal.repository.ApplicationRepository;
 import org.slf4j.Logger;
@@ -31,33 +39,106 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
+ * Applications which rhythm already has permission to publish beats to are remembered per tenant, so that checking
+ * them costs no query.  Only the first check for an application goes to the database and possibly to identity.  Those
+ * checks are serialized per lock stripe, so that permission is requested at most once per application, without
+ * holding up checks for other applications.  The cache is bounded, least recently used tenants are dropped first, and
+ * entries expire so that applications removed through another instance of rhythm are checked again eventually.
+ *
  * @author Myrle Krantz
  */
 @Service
 public class IdentityPermittableGroupService {
+  private static final int LOCK_STRIPES = 64; //Must be a power of two.
+
+  private static class CachedPermittedApplications {
+    private final Set<String> applicationIdentifiers = new HashSet<>();
+    private final long loadedAt;
+
+    private CachedPermittedApplications(final long loadedAt) {
+      this.loadedAt = loadedAt;
+    }
+  }
+
   private final ApplicationRepository applicationRepository;
   private final BeatPublisherService beatPublisherService;
   private final Logger logger;
+  private final long expiry;
+  private final Map<String, CachedPermittedApplications> permittedApplicationsByTenant;
+  private final Object[] locks = new Object[LOCK_STRIPES];
 
   @Autowired
   public IdentityPermittableGroupService(
       final ApplicationRepository applicationRepository,
       final BeatPublisherService beatPublisherService,
+      final RhythmProperties properties,
       @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
     this.applicationRepository = applicationRepository;
     this.beatPublisherService = beatPublisherService;
     this.logger = logger;
+    this.expiry = properties.getPermittedApplicationsCacheExpiry();
+    final int maximumSize = properties.getPermittedApplicationsCacheSize();
+    this.permittedApplicationsByTenant = new LinkedHashMap<String, CachedPermittedApplications>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedPermittedApplications> eldest) {
+        return size() > maximumSize;
+      }
+    };
+    for (int i = 0; i < LOCK_STRIPES; i++)
+      locks[i] = new Object();
   }
 
-  public synchronized boolean checkThatApplicationHasRequestForAccessPermission(
+  public boolean checkThatApplicationHasRequestForAccessPermission(
           final String tenantIdentifier,
           final String applicationIdentifier) {
-    try {
-      logger.info("checkThatApplicationHasRequestForAccessPermission begin");
-      return checkThatApplicationHasRequestForAccessPermissionHelper(tenantIdentifier, applicationIdentifier);
+    if (isKnownToBePermitted(tenantIdentifier, applicationIdentifier))
+      return true;
+
+    synchronized (lockFor(tenantIdentifier, applicationIdentifier)) {
+      if (isKnownToBePermitted(tenantIdentifier, applicationIdentifier))
+        return true;
+
+      try {
+        logger.info("checkThatApplicationHasRequestForAccessPermission begin");
+        final boolean ret = checkThatApplicationHasRequestForAccessPermissionHelper(tenantIdentifier, applicationIdentifier);
+        if (ret)
+          remember(tenantIdentifier, applicationIdentifier);
+        return ret;
+      }
+      catch (final DataIntegrityViolationException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Read the applications of the given tenants which have permission, in one query.  Tenants which were already read
+   * are skipped.
+   */
+  public void prefetch(final Collection<String> tenantIdentifiers) {
+    final long now = Clock.systemUTC().millis();
+    final Set<String> tenantsToRead;
+    synchronized (permittedApplicationsByTenant) {
+      tenantsToRead = tenantIdentifiers.stream()
+          .filter(x -> cachedPermittedApplications(x, now) == null)
+          .collect(Collectors.toSet());
+    }
+    if (tenantsToRead.isEmpty())
+      return;
+
+    final Collection<ApplicationEntity> applications = applicationRepository.findByTenantIdentifierIn(tenantsToRead);
+    synchronized (permittedApplicationsByTenant) {
+      tenantsToRead.forEach(x -> permittedApplicationsByTenant.put(x, new CachedPermittedApplications(now)));
+      applications.forEach(x -> permittedApplicationsByTenant.get(x.getTenantIdentifier())
+          .applicationIdentifiers.add(x.getApplicationIdentifier()));
     }
-    catch (final DataIntegrityViolationException e) {
-      return false;
+  }
+
+  public void forget(final String tenantIdentifier, final String applicationIdentifier) {
+    synchronized (permittedApplicationsByTenant) {
+      final CachedPermittedApplications cached = permittedApplicationsByTenant.get(tenantIdentifier);
+      if (cached != null)
+        cached.applicationIdentifiers.remove(applicationIdentifier);
     }
   }
 
@@ -83,4 +164,38 @@ public class IdentityPermittableGroupService {
       return ret.isPresent();
     }
   }
+
+  private boolean isKnownToBePermitted(final String tenantIdentifier, final String applicationIdentifier) {
+    final long now = Clock.systemUTC().millis();
+    synchronized (permittedApplicationsByTenant) {
+      final CachedPermittedApplications cached = cachedPermittedApplications(tenantIdentifier, now);
+      return cached != null && cached.applicationIdentifiers.contains(applicationIdentifier);
+    }
+  }
+
+  private void remember(final String tenantIdentifier, final String applicationIdentifier) {
+    final long now = Clock.systemUTC().millis();
+    synchronized (permittedApplicationsByTenant) {
+      CachedPermittedApplications cached = cachedPermittedApplications(tenantIdentifier, now);
+      if (cached == null) {
+        cached = new CachedPermittedApplications(now);
+        permittedApplicationsByTenant.put(tenantIdentifier, cached);
+      }
+      cached.applicationIdentifiers.add(applicationIdentifier);
+    }
+  }
+
+  //Must be called while holding the lock on permittedApplicationsByTenant.  Expired entries are dropped.
+  private CachedPermittedApplications cachedPermittedApplications(final String tenantIdentifier, final long now) {
+    final CachedPermittedApplications cached = permittedApplicationsByTenant.get(tenantIdentifier);
+    if (cached == null || now - cached.loadedAt < expiry)
+      return cached;
+    permittedApplicationsByTenant.remove(tenantIdentifier);
+    return null;
+  }
+
+  private Object lockFor(final String tenantIdentifier, final String applicationIdentifier) {
+    final int hash = 31 * tenantIdentifier.hashCode() + applicationIdentifier.hashCode();
+    return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+  }
 }
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatEntity;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatRepository;
+import org.apache.fineract.cn.rhythm.service.internal.repository.DueBeat;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps every beat in an in-memory timing wheel keyed by its next beat, and hands beats to the drummer as they come
+ * due.  The database is scanned at startup to fill the wheel and to recover beats which were missed while rhythm was
+ * down.  After that, the scan sleeps until the earliest next beat in the database, but never longer than
+ * beatCheckRate.  This recovers beats which were missed, for example because a publish failed or because the beat
+ * was changed outside of this instance, without polling while nothing is due.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class Metronome {
+  private static final int[] WHEEL_SIZES = {60, 60, 24}; //seconds, minutes, hours.
+
+  private final Drummer drummer;
+  private final BeatRepository beatRepository;
+  private final RhythmProperties properties;
+  private final Logger logger;
+  private final TimingWheel<Long> wheel;
+  private final ScheduledExecutorService recoveryScheduler;
+  private volatile boolean loaded = false;
+
+  @Autowired
+  public Metronome(
+      final Drummer drummer,
+      final BeatRepository beatRepository,
+      final RhythmProperties properties,
+      @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
+    this.drummer = drummer;
+    this.beatRepository = beatRepository;
+    this.properties = properties;
+    this.logger = logger;
+    this.wheel = new TimingWheel<>(properties.getTickRate(), Clock.systemUTC().millis(), WHEEL_SIZES);
+    this.recoveryScheduler = Executors.newSingleThreadScheduledExecutor(
+        runnable -> new Thread(runnable, "beat-recovery"));
+  }
+
+  public void schedule(final BeatEntity beat) {
+    wheel.schedule(beat.getId(), toMillis(beat.getNextBeat()));
+  }
+
+  public void schedule(final DueBeat beat) {
+    wheel.schedule(beat.getId(), toMillis(beat.getNextBeat()));
+  }
+
+  public void unschedule(final BeatEntity beat) {
+    wheel.cancel(beat.getId());
+  }
+
+  public void unschedule(final Long beatId) {
+    wheel.cancel(beatId);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    recoveryScheduler.execute(this::recover);
+  }
+
+  @PreDestroy
+  public void stop() {
+    recoveryScheduler.shutdownNow();
+  }
+
+  @Scheduled(fixedRateString = "${rhythm.tickRate:1000}")
+  public void tick() {
+    if (!loaded)
+      return;
+
+    final List<Long> dueBeats = wheel.advance(Clock.systemUTC().millis());
+    if (dueBeats.isEmpty())
+      return;
+
+    logger.debug("{} beats due.", dueBeats.size());
+    try {
+      rescheduleUpcoming(drummer.checkForBeatsNeeded(dueBeats, this::retryNextTick));
+    }
+    catch (final RuntimeException e) {
+      logger.warn("Checking {} due beats failed.", dueBeats.size(), e);
+      retryNextTick(dueBeats);
+    }
+  }
+
+  //Beats the wheel found due but which could not be claimed go back in the wheel for the next tick, rather than waiting
+  //for the next recovery.  Beats which were claimed in the meantime are just found not to be due any more.
+  private void retryNextTick(final List<Long> beatIds) {
+    final long nextTick = Clock.systemUTC().millis() + properties.getTickRate();
+    beatIds.forEach(id -> wheel.schedule(id, nextTick));
+  }
+
+  private void recover() {
+    try {
+      if (!loaded)
+        load();
+
+      rescheduleUpcoming(drummer.checkForBeatsNeeded());
+    }
+    catch (final RuntimeException e) {
+      logger.warn("Recovering due beats failed.", e);
+    }
+    finally {
+      if (!recoveryScheduler.isShutdown())
+        recoveryScheduler.schedule(this::recover, millisUntilNextRecovery(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  //Beats which are still due after a recovery are being claimed by another instance, and beats which failed to
+  //publish are retried from the outbox.  So only beats which are not yet due can bring the next recovery forward.
+  //The wheel is given one tick to publish those beats first, so that the recovery usually finds nothing to do.
+  private long millisUntilNextRecovery() {
+    final long maximumIdle = properties.getBeatCheckRate();
+    try {
+      final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+      final Timestamp earliestNextBeat = beatRepository.findEarliestNextBeatAfter(Timestamp.valueOf(now));
+      if (earliestNextBeat == null)
+        return maximumIdle;
+
+      final long untilEarliestNextBeat
+          = ChronoUnit.MILLIS.between(now, earliestNextBeat.toLocalDateTime()) + properties.getTickRate();
+      return Math.max(0, Math.min(maximumIdle, untilEarliestNextBeat));
+    }
+    catch (final DataAccessException e) {
+      return maximumIdle;
+    }
+  }
+
+  private void load() {
+    try {
+      final List<BeatEntity> beats = beatRepository.findAll();
+      beats.forEach(this::schedule);
+      loaded = true;
+      logger.info("Loaded {} beats into the timing wheel.", beats.size());
+    }
+    catch (final DataAccessException e) {
+      logger.info("Could not load beats into the timing wheel. Probably cause initialize hasn't been called yet.");
+    }
+  }
+
+  //Beats are advanced as soon as their outbox entries are written, so checked beats go back in the wheel for their
+  //next beat whether or not publishing has succeeded yet.
+  private void rescheduleUpcoming(final List<DueBeat> checkedBeats) {
+    final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+    checkedBeats.stream()
+        .filter(beat -> beat.getNextBeat().isAfter(now))
+        .forEach(this::schedule);
+  }
+
+  private static long toMillis(final LocalDateTime localDateTime) {
+    return localDateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the rate at which beats are published, to all applications together and to each application, with token
+ * buckets.  A bucket holds up to a second's worth of beats.  A publish over the limit waits until the buckets have
+ * refilled enough to let it through.  Publishes wait without holding a thread, and are let through in the order in
+ * which they asked.  A publish which would have to wait longer than half of rhythm.outboxLease is rejected instead,
+ * so that its outbox entry is tried again later rather than being claimed again while it is still waiting.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class PublishRateLimiter implements PublicMetrics {
+  private static class TokenBucket {
+    private final double tokensPerMilli;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+    private final AtomicLong throttledMillis = new AtomicLong();
+
+    TokenBucket(final int tokensPerSecond, final long now) {
+      this.tokensPerMilli = tokensPerSecond / 1000.0;
+      this.capacity = tokensPerSecond;
+      this.tokens = capacity;
+      this.refilledAt = now;
+    }
+
+    //Tokens can be taken before they are there.  The publish then waits until the bucket is out of debt, and
+    //publishes which come after it wait for it too.  Tokens aren't taken if the wait would be longer than maxWait.
+    synchronized long reserve(final int permits, final long now, final long maxWait) {
+      tokens = Math.min(capacity, tokens + Math.max(0, now - refilledAt) * tokensPerMilli);
+      refilledAt = Math.max(refilledAt, now);
+      final double remaining = tokens - permits;
+      final long wait = (remaining >= 0) ? 0 : (long) Math.ceil(-remaining / tokensPerMilli);
+      if (wait > maxWait)
+        return -1;
+      tokens = remaining;
+      throttledMillis.addAndGet(wait);
+      return wait;
+    }
+
+    synchronized void giveBack(final int permits) {
+      tokens = Math.min(capacity, tokens + permits);
+    }
+  }
+
+  private final RhythmProperties properties;
+  private final Executor executor;
+  private final Clock clock;
+  private final TokenBucket globalBucket;
+  private final ConcurrentMap<String, TokenBucket> applicationBuckets = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final AtomicLong throttled = new AtomicLong();
+  private final AtomicLong throttledMillis = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  @Autowired
+  public PublishRateLimiter(final RhythmProperties properties, final BeatPublisherPool beatPublisherPool) {
+    this(properties, beatPublisherPool::execute, Clock.systemUTC());
+  }
+
+  PublishRateLimiter(final RhythmProperties properties, final Executor executor, final Clock clock) {
+    this.properties = properties;
+    this.executor = executor;
+    this.clock = clock;
+    this.globalBucket = properties.getPublishRateLimit() > 0
+        ? new TokenBucket(properties.getPublishRateLimit(), clock.millis())
+        : null;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "publish-throttle"));
+  }
+
+  /**
+   * @return a future which completes once the given number of beats may be published to the application.  If they
+   * had to wait, it completes on a publisher thread, or exceptionally if the publisher queue is full by then.  If
+   * they would have to wait too long, it completes exceptionally straight away.
+   */
+  public CompletableFuture<Void> acquire(final String applicationIdentifier, final int permits) {
+    final long wait = reserve(applicationIdentifier, permits);
+    if (wait < 0) {
+      rejected.incrementAndGet();
+      final CompletableFuture<Void> ret = new CompletableFuture<>();
+      ret.completeExceptionally(new RejectedExecutionException(
+          "Publishing " + permits + " beats to application '" + applicationIdentifier + "' would wait too long."));
+      return ret;
+    }
+    if (wait == 0)
+      return CompletableFuture.completedFuture(null);
+
+    throttled.incrementAndGet();
+    throttledMillis.addAndGet(wait);
+    waiting.incrementAndGet();
+    final CompletableFuture<Void> ret = new CompletableFuture<>();
+    ret.whenComplete((x, e) -> waiting.decrementAndGet());
+    try {
+      scheduler.schedule(() -> {
+        try {
+          executor.execute(() -> ret.complete(null));
+        }
+        catch (final RejectedExecutionException e) {
+          ret.completeExceptionally(e);
+        }
+      }, wait, TimeUnit.MILLISECONDS);
+    }
+    catch (final RejectedExecutionException e) {
+      //Shutting down.
+      ret.complete(null);
+    }
+    return ret;
+  }
+
+  /**
+   * @return how many milliseconds the beats must wait before they may be published, or -1 if that would be longer
+   * than half of the outbox lease.  Then the beats don't count against the limit.
+   */
+  long reserve(final String applicationIdentifier, final int permits) {
+    final long now = clock.millis();
+    final long maxWait = properties.getOutboxLease() / 2;
+    final TokenBucket applicationBucket = applicationBucket(applicationIdentifier);
+    final long applicationWait = (applicationBucket == null) ? 0 : applicationBucket.reserve(permits, now, maxWait);
+    if (applicationWait < 0)
+      return -1;
+    final long globalWait = (globalBucket == null) ? 0 : globalBucket.reserve(permits, now, maxWait);
+    if (globalWait < 0) {
+      if (applicationBucket != null)
+        applicationBucket.giveBack(permits);
+      return -1;
+    }
+    return Math.max(applicationWait, globalWait);
+  }
+
+  private TokenBucket applicationBucket(final String applicationIdentifier) {
+    final int limit = properties.getPublishRateLimit(applicationIdentifier);
+    if (limit <= 0)
+      return null;
+    return applicationBuckets.computeIfAbsent(applicationIdentifier, x -> new TokenBucket(limit, clock.millis()));
+  }
+
+  @PreDestroy
+  public void stop() {
+    //Beats still waiting are published again once their outbox claim runs out.
+    scheduler.shutdownNow();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    final List<Metric<?>> ret = new ArrayList<>();
+    ret.add(new Metric<>("rhythm.throttle.waiting", waiting.get()));
+    ret.add(new Metric<>("rhythm.throttle.throttled", throttled.get()));
+    ret.add(new Metric<>("rhythm.throttle.time", throttledMillis.get()));
+    ret.add(new Metric<>("rhythm.throttle.rejected", rejected.get()));
+    if (globalBucket != null)
+      ret.add(new Metric<>("rhythm.throttle.time.global", globalBucket.throttledMillis.get()));
+    applicationBuckets.forEach((applicationIdentifier, bucket) ->
+        ret.add(new Metric<>("rhythm.throttle.time." + applicationIdentifier, bucket.throttledMillis.get())));
+    return ret;
+  }
+}
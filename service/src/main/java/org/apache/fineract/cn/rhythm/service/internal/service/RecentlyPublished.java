@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * The idempotency keys of the beats this instance published within the deduplication window.  Keys are kept as the
+ * two longs of their UUID, in open addressing tables, one per slice of the window.  The oldest slice is cleared as
+ * time moves on, so a key is remembered for at least the window and at most a slice longer.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class RecentlyPublished implements PublicMetrics {
+  private static final int SLICES = 4;
+
+  private final long window;
+  private final Clock clock;
+  private final Slice[] slices = new Slice[SLICES + 1];
+  private final AtomicLong suppressed = new AtomicLong();
+
+  @Autowired
+  public RecentlyPublished(final RhythmProperties properties) {
+    this(properties, Clock.systemUTC());
+  }
+
+  RecentlyPublished(final RhythmProperties properties, final Clock clock) {
+    this.window = properties.getPublishDeduplicationWindow();
+    this.clock = clock;
+    for (int i = 0; i < slices.length; i++)
+      slices[i] = new Slice();
+  }
+
+  /**
+   * @return true if the beat with this key was published within the window.  The caller is expected not to publish
+   * it again.
+   */
+  public synchronized boolean isDuplicate(final UUID idempotencyKey) {
+    if (window <= 0)
+      return false;
+
+    final long currentSlice = currentSlice();
+    for (final Slice slice : slices) {
+      if (slice.number > currentSlice - slices.length && slice.contains(idempotencyKey)) {
+        suppressed.incrementAndGet();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public synchronized void add(final UUID idempotencyKey) {
+    if (window <= 0)
+      return;
+
+    final long currentSlice = currentSlice();
+    final Slice slice = slices[(int) (currentSlice % slices.length)];
+    if (slice.number != currentSlice)
+      slice.reset(currentSlice);
+    slice.add(idempotencyKey);
+  }
+
+  synchronized int size() {
+    final long currentSlice = currentSlice();
+    return Arrays.stream(slices)
+        .filter(slice -> slice.number > currentSlice - slices.length)
+        .mapToInt(slice -> slice.size)
+        .sum();
+  }
+
+  private long currentSlice() {
+    return clock.millis() / Math.max(1, window / SLICES);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.<Metric<?>>asList(
+        new Metric<>("rhythm.deduplication.keys", size()),
+        new Metric<>("rhythm.deduplication.suppressed", suppressed.get()));
+  }
+
+  //Name based UUIDs always have version bits set, so a slot holding two zeros is empty.
+  private static final class Slice {
+    private static final int INITIAL_CAPACITY = 64; //Must be a power of two.
+
+    private long number = Long.MIN_VALUE;
+    private long[] slots = new long[2 * INITIAL_CAPACITY];
+    private int size = 0;
+
+    void reset(final long number) {
+      this.number = number;
+      if (slots.length == 2 * INITIAL_CAPACITY)
+        Arrays.fill(slots, 0);
+      else
+        slots = new long[2 * INITIAL_CAPACITY];
+      size = 0;
+    }
+
+    boolean contains(final UUID key) {
+      final long most = key.getMostSignificantBits();
+      final long least = key.getLeastSignificantBits();
+      final int mask = slots.length / 2 - 1;
+      for (int i = indexOf(most, least, mask); ; i = (i + 1) & mask) {
+        if (slots[2 * i] == most && slots[2 * i + 1] == least)
+          return true;
+        if (slots[2 * i] == 0 && slots[2 * i + 1] == 0)
+          return false;
+      }
+    }
+
+    void add(final UUID key) {
+      if (contains(key))
+        return;
+      if (2 * (size + 1) > slots.length / 2)
+        grow();
+      insert(key.getMostSignificantBits(), key.getLeastSignificantBits());
+      size++;
+    }
+
+    private void insert(final long most, final long least) {
+      final int mask = slots.length / 2 - 1;
+      int i = indexOf(most, least, mask);
+      while (slots[2 * i] != 0 || slots[2 * i + 1] != 0)
+        i = (i + 1) & mask;
+      slots[2 * i] = most;
+      slots[2 * i + 1] = least;
+    }
+
+    private void grow() {
+      final long[] old = slots;
+      slots = new long[2 * old.length];
+      for (int i = 0; i < old.length; i += 2) {
+        if (old[i] != 0 || old[i + 1] != 0)
+          insert(old[i], old[i + 1]);
+      }
+    }
+
+    private static int indexOf(final long most, final long least, final int mask) {
+      final long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+      return (int) (hash >>> 32) & mask;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+/**
+ * How long a beat waits before it is tried again after failing to publish.  The wait doubles with each failure in a
+ * row, up to a maximum.  Half of the wait is random, so that beats which failed together, for example because their
+ * listener went down, don't all come back at once.
+ *
+ * @author Myrle Krantz
+ */
+final class RetryBackoff {
+  private RetryBackoff() {
+  }
+
+  /**
+   * @param consecutiveFailures the failures in a row, including the one just now.  At least 1.
+   * @param random a number in [0, 1).
+   * @return the wait in milliseconds.
+   */
+  static long delay(
+      final int consecutiveFailures,
+      final long initialBackoff,
+      final long maximumBackoff,
+      final double random) {
+    final int doublings = Math.max(0, consecutiveFailures - 1);
+    final long backoff = (doublings >= Long.numberOfLeadingZeros(initialBackoff) - 1)
+        ? maximumBackoff
+        : Math.min(maximumBackoff, initialBackoff << doublings);
+    final long fixedPart = backoff / 2;
+    return fixedPart + (long) (random * (backoff - fixedPart));
+  }
+}
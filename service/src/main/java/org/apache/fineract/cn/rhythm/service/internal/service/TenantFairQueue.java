@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Orders work so that no tenant waits on another tenant's volume.  Each tenant has its own queue, ordered oldest
+ * first.  Tenants take turns in weighted round robin: a tenant with weight w is given up to w entries per turn.
+ *
+ * Not thread safe.
+ *
+ * @author Myrle Krantz
+ */
+class TenantFairQueue<T> {
+  private final Function<T, String> tenantOf;
+  private final Comparator<T> order;
+  private final ToIntFunction<String> weightOf;
+  private final Map<String, PriorityQueue<T>> queues = new HashMap<>();
+  private final Deque<String> turns = new ArrayDeque<>();
+  private int remainingInTurn = 0;
+  private int size = 0;
+
+  TenantFairQueue(
+      final Function<T, String> tenantOf,
+      final Comparator<T> order,
+      final ToIntFunction<String> weightOf) {
+    this.tenantOf = tenantOf;
+    this.order = order;
+    this.weightOf = weightOf;
+  }
+
+  void add(final T element) {
+    final String tenantIdentifier = tenantOf.apply(element);
+    queues.computeIfAbsent(tenantIdentifier, x -> {
+      turns.addLast(x);
+      return new PriorityQueue<>(order);
+    }).add(element);
+    size++;
+  }
+
+  void addAll(final Collection<T> elements) {
+    elements.forEach(this::add);
+  }
+
+  /**
+   * @return the next entry, or null if the queue is empty.
+   */
+  T poll() {
+    if (turns.isEmpty())
+      return null;
+
+    final String tenantIdentifier = turns.peekFirst();
+    if (remainingInTurn <= 0)
+      remainingInTurn = Math.max(1, weightOf.applyAsInt(tenantIdentifier));
+
+    final PriorityQueue<T> queue = queues.get(tenantIdentifier);
+    final T ret = queue.poll();
+    size--;
+    remainingInTurn--;
+
+    if (queue.isEmpty()) {
+      queues.remove(tenantIdentifier);
+      turns.removeFirst();
+      remainingInTurn = 0;
+    }
+    else if (remainingInTurn == 0) {
+      turns.addLast(turns.removeFirst());
+    }
+
+    return ret;
+  }
+
+  List<T> drain() {
+    final List<T> ret = new ArrayList<>(size);
+    for (T next = poll(); next != null; next = poll())
+      ret.add(next);
+    return ret;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+}
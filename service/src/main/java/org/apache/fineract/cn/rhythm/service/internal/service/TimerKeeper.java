@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.rhythm.service.ServiceConstants;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+import org.apache.fineract.cn.rhythm.service.internal.repository.TimerRepository;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fires timers as they come due, by moving them into the beat outbox and handing them to the dispatcher.  From then
+ * on a timer is published, retried and deduplicated the same way a beat is.  Between checks, the keeper sleeps until
+ * the earliest timer in the database, but never longer than beatCheckRate.  Timers created through this instance
+ * wake it sooner if they are due sooner.
+ *
+ * @author Myrle Krantz
+ */
+@Component
+public class TimerKeeper {
+  private final TimerRepository timerRepository;
+  private final BeatOutboxDispatcher beatOutboxDispatcher;
+  private final RhythmProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final Logger logger;
+  private final ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> nextCheck = null;
+  private long nextCheckAt = Long.MAX_VALUE;
+
+  @Autowired
+  public TimerKeeper(
+      final TimerRepository timerRepository,
+      final BeatOutboxDispatcher beatOutboxDispatcher,
+      final RhythmProperties properties,
+      final PlatformTransactionManager transactionManager,
+      @Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger) {
+    this.timerRepository = timerRepository;
+    this.beatOutboxDispatcher = beatOutboxDispatcher;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.logger = logger;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "timer-keeper"));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    scheduleCheck(Clock.systemUTC().millis());
+  }
+
+  @PreDestroy
+  public void stop() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Makes sure timers are checked by the given time.  Call once the timer has been committed.
+   */
+  public void schedule(final LocalDateTime fireAt) {
+    scheduleCheck(fireAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+  }
+
+  private void check() {
+    synchronized (this) {
+      //Timers created while this check runs schedule their own check.
+      nextCheck = null;
+      nextCheckAt = Long.MAX_VALUE;
+    }
+
+    long delay = properties.getBeatCheckRate();
+    try {
+      final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+      final LocalDateTime leaseUntil = now.plus(properties.getOutboxLease(), ChronoUnit.MILLIS);
+      final List<BeatOutboxEntry> fired = transactionTemplate.execute(
+          status -> timerRepository.moveDueToOutbox(now, leaseUntil, properties.getOutboxClaimSize()));
+      if (!fired.isEmpty()) {
+        logger.info("{} timers due.", fired.size());
+        beatOutboxDispatcher.dispatch(fired);
+      }
+
+      if (fired.size() >= properties.getOutboxClaimSize())
+        delay = 0;
+      else
+        delay = millisUntilEarliestTimer(delay);
+    }
+    catch (final DataAccessException e) {
+      logger.info("Could not check for due timers. Probably cause initialize hasn't been called yet.");
+    }
+    catch (final RuntimeException e) {
+      logger.warn("Checking for due timers failed.", e);
+    }
+    finally {
+      scheduleCheck(Clock.systemUTC().millis() + delay);
+    }
+  }
+
+  //Timers which are still due after a check are being fired by another instance, so only timers which are not yet due
+  //can bring the next check forward.  If the other instance fails to fire them, they are found by the next check.
+  private long millisUntilEarliestTimer(final long maximumIdle) {
+    final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+    final LocalDateTime earliestFireAt = timerRepository.findEarliestFireAtAfter(now);
+    if (earliestFireAt == null)
+      return maximumIdle;
+
+    final long untilEarliestFireAt = ChronoUnit.MILLIS.between(now, earliestFireAt);
+    return Math.max(0, Math.min(maximumIdle, untilEarliestFireAt));
+  }
+
+  private synchronized void scheduleCheck(final long at) {
+    if (nextCheck != null && nextCheckAt <= at)
+      return;
+
+    if (nextCheck != null)
+      nextCheck.cancel(false);
+    try {
+      nextCheck = scheduler.schedule(this::check, Math.max(0, at - Clock.systemUTC().millis()), TimeUnit.MILLISECONDS);
+      nextCheckAt = at;
+    }
+    catch (final RejectedExecutionException ignored) {
+      //Shutting down.
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A hierarchical timing wheel.  Each level has a fixed number of slots, and one slot of a level spans one full
+ * revolution of the level below it.  Entries are placed into the lowest level which can hold them, and cascade down
+ * a level whenever the slot they are in comes around.  Entries too far in the future for the top level are kept in an
+ * overflow set which is redistributed once per revolution of the top level.
+ *
+ * Scheduling and cancelling are O(1).  Advancing the clock is O(1) per tick plus the entries which cascade or expire.
+ *
+ * @author Myrle Krantz
+ */
+class TimingWheel<K> {
+  private static class Entry<K> {
+    private final K key;
+    private final long deadlineTick;
+    private Set<Entry<K>> bucket;
+
+    private Entry(final K key, final long deadlineTick) {
+      this.key = key;
+      this.deadlineTick = deadlineTick;
+    }
+  }
+
+  private final long tickMillis;
+  private final int[] wheelSizes;
+  private final long[] ticksPerSlot;
+  private final long ticksPerRevolution;
+  private final List<List<Set<Entry<K>>>> levels;
+  private final Set<Entry<K>> overflow = new HashSet<>();
+  private final Set<Entry<K>> expired = new HashSet<>();
+  private final Map<K, Entry<K>> entries = new HashMap<>();
+  private long currentTick;
+
+  TimingWheel(final long tickMillis, final long startMillis, final int... wheelSizes) {
+    if (tickMillis <= 0 || wheelSizes.length == 0)
+      throw new IllegalArgumentException("A timing wheel needs a positive tick and at least one level.");
+    this.tickMillis = tickMillis;
+    this.wheelSizes = wheelSizes.clone();
+    this.ticksPerSlot = new long[wheelSizes.length];
+    this.levels = new ArrayList<>(wheelSizes.length);
+    long ticks = 1;
+    for (int level = 0; level < wheelSizes.length; level++) {
+      ticksPerSlot[level] = ticks;
+      ticks *= wheelSizes[level];
+      final List<Set<Entry<K>>> slots = new ArrayList<>(wheelSizes[level]);
+      for (int slot = 0; slot < wheelSizes[level]; slot++)
+        slots.add(new HashSet<>());
+      levels.add(slots);
+    }
+    this.ticksPerRevolution = ticks;
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /**
+   * Schedule the key to expire at the given time.  If the key is already scheduled, it is moved.  Keys with a
+   * deadline at or before the current time are returned by the next call to advance.
+   */
+  synchronized void schedule(final K key, final long deadlineMillis) {
+    cancel(key);
+    final Entry<K> entry = new Entry<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+    entries.put(key, entry);
+    place(entry);
+  }
+
+  synchronized boolean cancel(final K key) {
+    final Entry<K> entry = entries.remove(key);
+    if (entry == null)
+      return false;
+    entry.bucket.remove(entry);
+    return true;
+  }
+
+  synchronized void cancelIf(final Predicate<K> predicate) {
+    final Iterator<Map.Entry<K, Entry<K>>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Entry<K> entry = iterator.next().getValue();
+      if (predicate.test(entry.key)) {
+        entry.bucket.remove(entry);
+        iterator.remove();
+      }
+    }
+  }
+
+  synchronized boolean contains(final K key) {
+    return entries.containsKey(key);
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Move the wheel forward to the given time.
+   *
+   * @return the keys which expired.  Expired keys are no longer scheduled.
+   */
+  synchronized List<K> advance(final long nowMillis) {
+    final List<K> ret = new ArrayList<>();
+    final long nowTick = nowMillis / tickMillis;
+    while (currentTick < nowTick) {
+      currentTick++;
+      cascade();
+      drain(slotFor(0, currentTick), ret);
+    }
+    drain(expired, ret);
+    return ret;
+  }
+
+  private void cascade() {
+    for (int level = 1; level < wheelSizes.length; level++) {
+      if (currentTick % ticksPerSlot[level] != 0)
+        return;
+      redistribute(slotFor(level, currentTick));
+    }
+    if (currentTick % ticksPerRevolution == 0)
+      redistribute(overflow);
+  }
+
+  private void redistribute(final Set<Entry<K>> bucket) {
+    final List<Entry<K>> toPlace = new ArrayList<>(bucket);
+    bucket.clear();
+    toPlace.forEach(this::place);
+  }
+
+  private void place(final Entry<K> entry) {
+    final long delta = entry.deadlineTick - currentTick;
+    if (delta <= 0) {
+      add(expired, entry);
+      return;
+    }
+    for (int level = 0; level < wheelSizes.length; level++) {
+      if (delta < ticksPerSlot[level] * wheelSizes[level]) {
+        add(slotFor(level, entry.deadlineTick), entry);
+        return;
+      }
+    }
+    add(overflow, entry);
+  }
+
+  private Set<Entry<K>> slotFor(final int level, final long tick) {
+    return levels.get(level).get((int) ((tick / ticksPerSlot[level]) % wheelSizes[level]));
+  }
+
+  private void add(final Set<Entry<K>> bucket, final Entry<K> entry) {
+    entry.bucket = bucket;
+    bucket.add(entry);
+  }
+
+  private void drain(final Set<Entry<K>> bucket, final List<K> expiredKeys) {
+    bucket.forEach(entry -> {
+      entries.remove(entry.key);
+      expiredKeys.add(entry.key);
+    });
+    bucket.clear();
+  }
+}
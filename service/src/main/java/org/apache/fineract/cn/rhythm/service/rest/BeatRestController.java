@@ -20,15 +20,26 @@ package org.apache.fineract.cn.rhythm.service.rest;
 
 import static org.apache.fineract.cn.lang.config.TenantHeaderFilter.TENANT_HEADER;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import javax.validation.Valid;
 import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
 import org.apache.fineract.cn.anubis.annotation.Permittable;
 import org.apache.fineract.cn.command.gateway.CommandGateway;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.apache.fineract.cn.rhythm.api.v1.domain.Beat;
+import org.apache.fineract.cn.rhythm.api.v1.domain.BeatBatch;
+import org.apache.fineract.cn.rhythm.api.v1.domain.BeatDeletionBatch;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
 import org.apache.fineract.cn.rhythm.service.internal.command.CreateBeatCommand;
+import org.apache.fineract.cn.rhythm.service.internal.command.CreateBeatsCommand;
 import org.apache.fineract.cn.rhythm.service.internal.command.DeleteBeatCommand;
+import org.apache.fineract.cn.rhythm.service.internal.command.DeleteBeatsCommand;
+import org.apache.fineract.cn.rhythm.service.internal.schedule.BeatSchedule;
 import org.apache.fineract.cn.rhythm.service.internal.service.BeatService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -48,16 +59,20 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/applications/{applicationidentifier}/beats")
 public class BeatRestController {
+  private static final int TENANT_IDENTIFIER_LENGTH = 32;
 
   private final CommandGateway commandGateway;
   private final BeatService beatService;
+  private final RhythmProperties properties;
 
   @Autowired
   public BeatRestController(final CommandGateway commandGateway,
-                            final BeatService beatService) {
+                            final BeatService beatService,
+                            final RhythmProperties properties) {
     super();
     this.commandGateway = commandGateway;
     this.beatService = beatService;
+    this.properties = properties;
   }
 
   @Permittable(value = AcceptedTokenType.SYSTEM)
@@ -105,6 +120,13 @@ public class BeatRestController {
           @RequestHeader(TENANT_HEADER) final String tenantIdentifier,
           @PathVariable("applicationidentifier") final String applicationIdentifier,
           @RequestBody @Valid final Beat instance) throws InterruptedException {
+    try {
+      checkBeat(instance);
+    }
+    catch (final IllegalArgumentException e) {
+      throw ServiceException.badRequest(e.getMessage());
+    }
+
     this.commandGateway.process(new CreateBeatCommand(tenantIdentifier, applicationIdentifier, instance));
     return ResponseEntity.accepted().build();
   }
@@ -125,4 +147,89 @@ public class BeatRestController {
     this.commandGateway.process(new DeleteBeatCommand(tenantIdentifier, applicationIdentifier, beatIdentifier));
     return ResponseEntity.accepted().build();
   }
-}
\ No newline at end of file
+
+  //Open to the application's own permission, like createBeat, so the beats of a batch are only created for the tenant
+  //of the request.
+  @Permittable(value = AcceptedTokenType.SYSTEM, permittedEndpoint = "/applications/{applicationidentifier}/beats/batch", acceptTokenIntendedForForeignApplication = true) //Allow apps to use this endpoint in their provisioning code.
+  @RequestMapping(
+          value = "/batch",
+          method = RequestMethod.POST,
+          consumes = MediaType.APPLICATION_JSON_VALUE,
+          produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public
+  @ResponseBody
+  ResponseEntity<Void> createBeats(
+          @RequestHeader(TENANT_HEADER) final String tenantIdentifier,
+          @PathVariable("applicationidentifier") final String applicationIdentifier,
+          @RequestBody @Valid final BeatBatch instance) throws InterruptedException {
+    final List<String> tenantIdentifiers = tenantsOfBatch(tenantIdentifier, instance.getTenantIdentifiers());
+    if (!tenantIdentifiers.equals(Collections.singletonList(tenantIdentifier)))
+      throw ServiceException.badRequest("Beats in a batch can only be created for the tenant of the request.");
+    final Set<String> beatIdentifiers = new HashSet<>();
+    for (final Beat beat : instance.getBeats()) {
+      if (!beatIdentifiers.add(beat.getIdentifier()))
+        throw ServiceException.badRequest("Beat {0} appears more than once in the batch.", beat.getIdentifier());
+      try {
+        checkBeat(beat);
+      }
+      catch (final IllegalArgumentException e) {
+        throw ServiceException.badRequest("Beat {0}: {1}", beat.getIdentifier(), e.getMessage());
+      }
+    }
+    checkBatchSize(tenantIdentifiers.size(), beatIdentifiers.size());
+
+    this.commandGateway.process(
+        new CreateBeatsCommand(tenantIdentifier, applicationIdentifier, tenantIdentifiers, instance.getBeats()));
+    return ResponseEntity.accepted().build();
+  }
+
+  //Not open to tokens intended for other applications, because a deletion batch can reach beyond the tenant of the
+  //request.
+  @Permittable(value = AcceptedTokenType.SYSTEM)
+  @RequestMapping(
+          value = "/batch/deletion",
+          method = RequestMethod.POST,
+          consumes = MediaType.APPLICATION_JSON_VALUE,
+          produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public
+  @ResponseBody
+  ResponseEntity<Void> deleteBeats(
+          @RequestHeader(TENANT_HEADER) final String tenantIdentifier,
+          @PathVariable("applicationidentifier") final String applicationIdentifier,
+          @RequestBody @Valid final BeatDeletionBatch instance) throws InterruptedException {
+    final List<String> tenantIdentifiers = tenantsOfBatch(tenantIdentifier, instance.getTenantIdentifiers());
+    final List<String> beatIdentifiers = new ArrayList<>(new LinkedHashSet<>(instance.getBeatIdentifiers()));
+    if (beatIdentifiers.contains(null))
+      throw ServiceException.badRequest("Beat identifiers must not be null.");
+    checkBatchSize(tenantIdentifiers.size(), beatIdentifiers.size());
+
+    this.commandGateway.process(
+        new DeleteBeatsCommand(tenantIdentifier, applicationIdentifier, tenantIdentifiers, beatIdentifiers));
+    return ResponseEntity.accepted().build();
+  }
+
+  private static void checkBeat(final Beat beat) {
+    BeatSchedule.of(beat.getAlignmentHour(), beat.getPeriodMinutes(), beat.getCronExpression());
+    if (beat.getCatchUpPolicy() == Beat.CatchUpPolicy.FIRE_LAST_N && beat.getCatchUpLimit() == null)
+      throw new IllegalArgumentException("A catch up limit is required for the catch up policy FIRE_LAST_N.");
+  }
+
+  private static List<String> tenantsOfBatch(final String tenantIdentifier, final List<String> tenantIdentifiers) {
+    if (tenantIdentifiers == null || tenantIdentifiers.isEmpty())
+      return Collections.singletonList(tenantIdentifier);
+
+    for (final String x : tenantIdentifiers) {
+      if (x == null || x.isEmpty() || x.length() > TENANT_IDENTIFIER_LENGTH)
+        throw ServiceException.badRequest("Tenant identifiers must be between 1 and {0} characters long.", TENANT_IDENTIFIER_LENGTH);
+    }
+    return new ArrayList<>(new LinkedHashSet<>(tenantIdentifiers));
+  }
+
+  private void checkBatchSize(final int tenantCount, final int beatCount) {
+    if ((long) tenantCount * beatCount > properties.getBeatBatchLimit())
+      throw ServiceException.badRequest("A batch may contain at most {0} beats, counting each beat once for each tenant.",
+          properties.getBeatBatchLimit());
+  }
+}
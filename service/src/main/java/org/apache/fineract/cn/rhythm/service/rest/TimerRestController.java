@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.rest;
+
+import static org.apache.fineract.cn.lang.config.TenantHeaderFilter.TENANT_HEADER;
+
+import javax.validation.Valid;
+import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
+import org.apache.fineract.cn.anubis.annotation.Permittable;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.apache.fineract.cn.rhythm.api.v1.domain.Timer;
+import org.apache.fineract.cn.rhythm.service.internal.command.CreateTimerCommand;
+import org.apache.fineract.cn.rhythm.service.internal.command.DeleteTimerCommand;
+import org.apache.fineract.cn.rhythm.service.internal.service.TimerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Applications create and delete their timers while they run, so every endpoint accepts the application's own token.
+ *
+ * @author Myrle Krantz
+ */
+@SuppressWarnings("unused")
+@RestController
+@RequestMapping("/applications/{applicationidentifier}/timers")
+public class TimerRestController {
+
+  private final CommandGateway commandGateway;
+  private final TimerService timerService;
+
+  @Autowired
+  public TimerRestController(final CommandGateway commandGateway,
+                             final TimerService timerService) {
+    super();
+    this.commandGateway = commandGateway;
+    this.timerService = timerService;
+  }
+
+  @Permittable(value = AcceptedTokenType.SYSTEM, permittedEndpoint = "/applications/{applicationidentifier}/timers/{timeridentifier}", acceptTokenIntendedForForeignApplication = true)
+  @RequestMapping(
+          value = "/{timeridentifier}",
+          method = RequestMethod.GET,
+          consumes = MediaType.ALL_VALUE,
+          produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public
+  @ResponseBody
+  ResponseEntity<Timer> getTimer(
+          @RequestHeader(TENANT_HEADER) final String tenantIdentifier,
+          @PathVariable("applicationidentifier") final String applicationIdentifier,
+          @PathVariable("timeridentifier") final String timerIdentifier) {
+    return this.timerService.findByIdentifier(tenantIdentifier, applicationIdentifier, timerIdentifier)
+            .map(ResponseEntity::ok)
+            .orElseThrow(() -> ServiceException
+                .notFound("Timer ''" + timerIdentifier + "'' for application ''" + applicationIdentifier + "'' doesn''t exist."));
+  }
+
+  @Permittable(value = AcceptedTokenType.SYSTEM, permittedEndpoint = "/applications/{applicationidentifier}/timers", acceptTokenIntendedForForeignApplication = true)
+  @RequestMapping(
+          method = RequestMethod.POST,
+          consumes = MediaType.APPLICATION_JSON_VALUE,
+          produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public
+  @ResponseBody
+  ResponseEntity<Void> createTimer(
+          @RequestHeader(TENANT_HEADER) final String tenantIdentifier,
+          @PathVariable("applicationidentifier") final String applicationIdentifier,
+          @RequestBody @Valid final Timer instance) throws InterruptedException {
+    this.commandGateway.process(new CreateTimerCommand(tenantIdentifier, applicationIdentifier, instance));
+    return ResponseEntity.accepted().build();
+  }
+
+  @Permittable(value = AcceptedTokenType.SYSTEM, permittedEndpoint = "/applications/{applicationidentifier}/timers/{timeridentifier}", acceptTokenIntendedForForeignApplication = true)
+  @RequestMapping(
+          value = "/{timeridentifier}",
+          method = RequestMethod.DELETE,
+          consumes = MediaType.ALL_VALUE,
+          produces = MediaType.ALL_VALUE
+  )
+  public
+  @ResponseBody
+  ResponseEntity<Void> deleteTimer(
+          @RequestHeader(TENANT_HEADER) final String tenantIdentifier,
+          @PathVariable("applicationidentifier") final String applicationIdentifier,
+          @PathVariable("timeridentifier") final String timerIdentifier) throws InterruptedException {
+    this.commandGateway.process(new DeleteTimerCommand(tenantIdentifier, applicationIdentifier, timerIdentifier));
+    return ResponseEntity.accepted().build();
+  }
+}
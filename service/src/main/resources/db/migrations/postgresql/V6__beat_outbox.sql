@@ -0,0 +1,35 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE khepri_beat_outbox (
+  id BIGSERIAL NOT NULL,
+  tenant_identifier        VARCHAR(32)  NOT NULL,
+  application_identifier   VARCHAR(64)  NOT NULL,
+  beat_identifier          VARCHAR(32)  NOT NULL,
+  for_time                 TIMESTAMP(3) NOT NULL,
+  state                    VARCHAR(16)  NOT NULL,
+  next_attempt             TIMESTAMP(3) NOT NULL,
+  consecutive_failures     INT          NOT NULL,
+  last_error               VARCHAR(512) NULL,
+  sent_on                  TIMESTAMP(3) NULL,
+  CONSTRAINT khepri_beat_outbox_pk PRIMARY KEY (id)
+);
+
+CREATE INDEX khepri_beat_outbox_unsent_ix ON khepri_beat_outbox (next_attempt, id) WHERE state <> 'SENT';
+CREATE INDEX khepri_beat_outbox_sent_ix ON khepri_beat_outbox (sent_on) WHERE state = 'SENT';
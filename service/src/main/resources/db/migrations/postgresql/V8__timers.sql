@@ -0,0 +1,30 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+-- Timers are only ever inserted and deleted, so the table is kept narrow, with no surrogate key and a single
+-- secondary index, and vacuumed early so that the deleted rows don't bloat the indexes.
+CREATE TABLE khepri_timers (
+  tenant_identifier        VARCHAR(32)  NOT NULL,
+  application_identifier   VARCHAR(64)  NOT NULL,
+  timer_identifier         VARCHAR(32)  NOT NULL,
+  fire_at                  TIMESTAMP(3) NOT NULL,
+  CONSTRAINT khepri_timers_pk PRIMARY KEY (tenant_identifier, application_identifier, timer_identifier)
+) WITH (autovacuum_vacuum_scale_factor = 0.01, autovacuum_analyze_scale_factor = 0.02);
+
+CREATE INDEX khepri_timers_fire_at_ix ON khepri_timers (fire_at);
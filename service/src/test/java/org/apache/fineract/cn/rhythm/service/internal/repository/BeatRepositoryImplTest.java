@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.repository;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+/**
+ * Counts the statements handed to JDBC when the drummer writes back the next beats of a run, and when a batch of
+ * beats is created.  The database is mocked, so this checks that a run is sent as one batch; it does not measure the
+ * round trips or the time a run takes against Postgres.
+ *
+ * @author Myrle Krantz
+ */
+public class BeatRepositoryImplTest {
+  private static final int BEATS_IN_RUN = 50_000;
+
+  private DataSource dataSourceMock;
+  private PreparedStatement preparedStatementMock;
+
+  @Before
+  public void prepare() throws SQLException {
+    dataSourceMock = Mockito.mock(DataSource.class);
+    final Connection connectionMock = Mockito.mock(Connection.class);
+    final DatabaseMetaData metaDataMock = Mockito.mock(DatabaseMetaData.class);
+    preparedStatementMock = Mockito.mock(PreparedStatement.class);
+
+    Mockito.when(dataSourceMock.getConnection()).thenReturn(connectionMock);
+    Mockito.when(connectionMock.getMetaData()).thenReturn(metaDataMock);
+    Mockito.when(metaDataMock.supportsBatchUpdates()).thenReturn(true);
+    Mockito.when(connectionMock.prepareStatement(Matchers.anyString())).thenReturn(preparedStatementMock);
+    Mockito.when(preparedStatementMock.getConnection()).thenReturn(connectionMock);
+    Mockito.when(preparedStatementMock.executeBatch()).thenAnswer(invocation -> new int[BEATS_IN_RUN]);
+  }
+
+  @Test
+  public void shouldWriteRunInOneRoundTrip() throws SQLException {
+    final List<DueBeat> beats = new ArrayList<>(BEATS_IN_RUN);
+    final LocalDateTime nextBeat = LocalDateTime.of(2017, 12, 19, 0, 0);
+    for (long i = 0; i < BEATS_IN_RUN; i++)
+      beats.add(new DueBeat(i, "tenant", "application", "beat" + i, 0, nextBeat, null, null, null, null, null));
+
+    final int updated = new BeatRepositoryImpl(dataSourceMock).updateNextBeats(beats);
+
+    Assert.assertEquals(BEATS_IN_RUN, updated);
+    Mockito.verify(preparedStatementMock, Mockito.times(BEATS_IN_RUN)).addBatch();
+    Mockito.verify(preparedStatementMock, Mockito.times(1)).executeBatch();
+    Mockito.verify(preparedStatementMock, Mockito.never()).executeUpdate();
+  }
+
+  @Test
+  public void shouldCreateBatchInOneRoundTripAndOneQuery() throws SQLException {
+    final ResultSet resultSetMock = Mockito.mock(ResultSet.class);
+    Mockito.when(preparedStatementMock.executeQuery()).thenReturn(resultSetMock);
+
+    final List<BeatEntity> beats = new ArrayList<>(BEATS_IN_RUN);
+    final LocalDateTime nextBeat = LocalDateTime.of(2017, 12, 19, 0, 0);
+    for (int i = 0; i < BEATS_IN_RUN; i++) {
+      final BeatEntity beat = new BeatEntity();
+      beat.setTenantIdentifier("tenant" + (i / 10));
+      beat.setApplicationIdentifier("application");
+      beat.setBeatIdentifier("beat" + (i % 10));
+      beat.setAlignmentHour(0);
+      beat.setNextBeat(nextBeat);
+      beats.add(beat);
+    }
+
+    final List<BeatEntity> created = new BeatRepositoryImpl(dataSourceMock).upsertBeats("application", beats);
+
+    Assert.assertEquals(BEATS_IN_RUN, created.size());
+    Mockito.verify(preparedStatementMock, Mockito.times(BEATS_IN_RUN)).addBatch();
+    Mockito.verify(preparedStatementMock, Mockito.times(1)).executeBatch();
+    Mockito.verify(preparedStatementMock, Mockito.times(1)).executeQuery();
+    Mockito.verify(preparedStatementMock, Mockito.never()).executeUpdate();
+  }
+
+  @Test
+  public void shouldNotTouchDatabaseForEmptyRun() throws SQLException {
+    final int updated = new BeatRepositoryImpl(dataSourceMock).updateNextBeats(Collections.emptyList());
+
+    Assert.assertEquals(0, updated);
+    Mockito.verify(dataSourceMock, Mockito.never()).getConnection();
+  }
+}
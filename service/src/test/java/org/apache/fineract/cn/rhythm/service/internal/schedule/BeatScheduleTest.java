@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.schedule;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class BeatScheduleTest {
+  @Test
+  public void dailyBeatHasNoSchedule() {
+    Assert.assertFalse(BeatSchedule.of(4, null, null).isPresent());
+  }
+
+  @Test
+  public void periodStartsAtAlignmentHour() {
+    final BeatSchedule schedule = BeatSchedule.of(4, 15, null).orElseThrow(IllegalStateException::new);
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 18, 15, 15),
+        schedule.next(LocalDateTime.of(2017, 12, 18, 15, 5, 2), new ClockOffset()));
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 18, 15, 30),
+        schedule.next(LocalDateTime.of(2017, 12, 18, 15, 15), new ClockOffset()));
+
+    final BeatSchedule eightHours = BeatSchedule.of(4, 480, null).orElseThrow(IllegalStateException::new);
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 18, 20, 0),
+        eightHours.next(LocalDateTime.of(2017, 12, 18, 18, 0), new ClockOffset()));
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 19, 4, 0),
+        eightHours.next(LocalDateTime.of(2017, 12, 18, 20, 0), new ClockOffset()));
+  }
+
+  @Test
+  public void periodIsInTenantTime() {
+    final BeatSchedule schedule = BeatSchedule.of(4, 15, null).orElseThrow(IllegalStateException::new);
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 18, 15, 17, 3),
+        schedule.next(LocalDateTime.of(2017, 12, 18, 15, 15), new ClockOffset(1, 2, 3)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void periodMustDivideDay() {
+    BeatSchedule.of(0, 7, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void periodAndCronExpressionAreExclusive() {
+    BeatSchedule.of(0, 15, "*/15 * * * *");
+  }
+
+  @Test
+  public void cronWeekdays() {
+    final BeatSchedule schedule = BeatSchedule.of(null, null, "30 9 * * MON-FRI").orElseThrow(IllegalStateException::new);
+    //2017-12-22 is a Friday.
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 25, 9, 30),
+        schedule.next(LocalDateTime.of(2017, 12, 22, 9, 30), new ClockOffset()));
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 22, 9, 30),
+        schedule.next(LocalDateTime.of(2017, 12, 21, 23, 59), new ClockOffset()));
+  }
+
+  @Test
+  public void cronLeapDay() {
+    final BeatSchedule schedule = BeatSchedule.of(null, null, "0 0 29 2 *").orElseThrow(IllegalStateException::new);
+    Assert.assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0),
+        schedule.next(LocalDateTime.of(2017, 3, 1, 0, 0), new ClockOffset()));
+  }
+
+  @Test
+  public void cronDayOfMonthOrDayOfWeek() {
+    final BeatSchedule schedule = BeatSchedule.of(null, null, "0 12 1 * SUN").orElseThrow(IllegalStateException::new);
+    final Deque<LocalDateTime> fired = new ArrayDeque<>();
+    LocalDateTime next = LocalDateTime.of(2017, 11, 28, 0, 0);
+    for (int i = 0; i < 3; i++) {
+      next = schedule.next(next, new ClockOffset());
+      fired.addLast(next);
+    }
+    Assert.assertEquals(Arrays.asList(
+        LocalDateTime.of(2017, 12, 1, 12, 0),
+        LocalDateTime.of(2017, 12, 3, 12, 0),
+        LocalDateTime.of(2017, 12, 10, 12, 0)), Arrays.asList(fired.toArray()));
+  }
+
+  @Test
+  public void cronIsInTenantTime() {
+    final BeatSchedule schedule = BeatSchedule.of(null, null, "0 0 * * *").orElseThrow(IllegalStateException::new);
+    Assert.assertEquals(LocalDateTime.of(2017, 12, 19, 2, 0),
+        schedule.next(LocalDateTime.of(2017, 12, 18, 2, 0), new ClockOffset(2, 0, 0)));
+  }
+
+  @Test
+  public void invalidCronExpressions() {
+    Arrays.asList("* * * *", "60 * * * *", "* * * 13 *", "5-1 * * * *", "*/0 * * * *", "0 0 30 2 *", "x * * * *")
+        .forEach(x -> {
+          try {
+            BeatSchedule.of(null, null, x);
+            Assert.fail(x + " should be rejected.");
+          }
+          catch (final IllegalArgumentException ignored) { }
+        });
+  }
+}
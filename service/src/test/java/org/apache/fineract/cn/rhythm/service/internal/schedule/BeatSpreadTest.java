@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.schedule;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class BeatSpreadTest {
+  @Test
+  public void noWindowNoOffset() {
+    Assert.assertEquals(0, BeatSpread.offsetSeconds("tenant", "beat", 0));
+    Assert.assertEquals(0, BeatSpread.offsetSeconds("tenant", "beat", 1));
+  }
+
+  @Test
+  public void offsetIsStable() {
+    Assert.assertEquals(
+        BeatSpread.offsetSeconds("tenant", "beat", 3600),
+        BeatSpread.offsetSeconds(new String("tenant"), new String("beat"), 3600));
+  }
+
+  @Test
+  public void offsetsAreSpreadEvenlyOverWindow() {
+    final int window = 3600;
+    final int[] perMinute = new int[60];
+    for (int i = 0; i < 60_000; i++) {
+      final long offset = BeatSpread.offsetSeconds("tenant" + (i % 7), "beat" + i, window);
+      Assert.assertTrue(offset >= 0 && offset < window);
+      perMinute[(int) (offset / 60)]++;
+    }
+    for (final int count : perMinute)
+      Assert.assertTrue("Expected about 1000 beats in each minute, but there were " + count, count > 800 && count < 1200);
+  }
+
+  @Test
+  public void tenantsAreSpreadApart() {
+    Assert.assertNotEquals(
+        BeatSpread.offsetSeconds("tenant1", "beat", 3600),
+        BeatSpread.offsetSeconds("tenant2", "beat", 3600));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.fineract.cn.permittedfeignclient.service.ApplicationAccessTokenService;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+/**
+ * @author Myrle Krantz
+ */
+public class AccessTokenCacheTest {
+  private static final String USER = "homer";
+
+  private ApplicationAccessTokenService applicationAccessTokenServiceMock;
+  private RhythmProperties properties;
+  private AccessTokenCache testSubject;
+
+  @Before
+  public void prepare() {
+    applicationAccessTokenServiceMock = Mockito.mock(ApplicationAccessTokenService.class);
+    properties = new RhythmProperties();
+    properties.setUser(USER);
+    testSubject = new AccessTokenCache(applicationAccessTokenServiceMock, properties, Mockito.mock(Logger.class));
+  }
+
+  @After
+  public void cleanup() {
+    testSubject.shutdown();
+  }
+
+  @Test
+  public void shouldFetchOncePerTenant() {
+    Mockito.when(applicationAccessTokenServiceMock.getAccessToken(USER, "lion")).thenReturn("token");
+
+    for (int i = 0; i < 3; i++)
+      Assert.assertEquals("token", testSubject.getAccessToken("lion"));
+
+    Mockito.verify(applicationAccessTokenServiceMock, Mockito.times(1)).getAccessToken(USER, "lion");
+  }
+
+  @Test
+  public void shouldFetchAgainAfterEviction() {
+    Mockito.when(applicationAccessTokenServiceMock.getAccessToken(USER, "lion")).thenReturn("token", "token2");
+
+    Assert.assertEquals("token", testSubject.getAccessToken("lion"));
+    testSubject.evict("lion", "someOtherToken");
+    Assert.assertEquals("token", testSubject.getAccessToken("lion"));
+    testSubject.evict("lion", "token");
+    Assert.assertEquals("token2", testSubject.getAccessToken("lion"));
+  }
+
+  @Test
+  public void shouldCollapseConcurrentMissesIntoOneFetch() throws Exception {
+    final CountDownLatch fetchStarted = new CountDownLatch(1);
+    final CountDownLatch releaseFetch = new CountDownLatch(1);
+    Mockito.when(applicationAccessTokenServiceMock.getAccessToken(USER, "lion")).thenAnswer(invocation -> {
+      fetchStarted.countDown();
+      releaseFetch.await(5, TimeUnit.SECONDS);
+      return "token";
+    });
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Callable<String>> lookups = IntStream.range(0, 8)
+          .mapToObj(i -> (Callable<String>) () -> testSubject.getAccessToken("lion"))
+          .collect(Collectors.toList());
+      final List<Future<String>> results = lookups.stream().map(executor::submit).collect(Collectors.toList());
+      Assert.assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+      releaseFetch.countDown();
+      for (final Future<String> result : results)
+        Assert.assertEquals("token", result.get());
+    }
+    finally {
+      executor.shutdown();
+    }
+
+    Mockito.verify(applicationAccessTokenServiceMock, Mockito.times(1)).getAccessToken(USER, "lion");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldPassOnFetchFailure() {
+    Mockito.when(applicationAccessTokenServiceMock.getAccessToken(USER, "lion")).thenThrow(new IllegalStateException());
+
+    testSubject.getAccessToken("lion");
+  }
+
+  @Test
+  public void shouldBackOffAfterFailedRefresh() throws InterruptedException {
+    //The token is due for a refresh as soon as it is fetched, and a failed refresh isn't tried again for a while.
+    properties.setAccessTokenRefreshAhead(properties.getAccessTokenTimeToLive());
+    properties.setRetryInitialBackoff(TimeUnit.MINUTES.toMillis(1));
+    Mockito.when(applicationAccessTokenServiceMock.getAccessToken(USER, "lion"))
+        .thenReturn("token")
+        .thenThrow(new IllegalStateException());
+
+    Assert.assertEquals("token", testSubject.getAccessToken("lion"));
+    Mockito.verify(applicationAccessTokenServiceMock, Mockito.timeout(5_000).times(2)).getAccessToken(USER, "lion");
+    Thread.sleep(TimeUnit.SECONDS.toMillis(3));
+    Mockito.verify(applicationAccessTokenServiceMock, Mockito.times(2)).getAccessToken(USER, "lion");
+    Assert.assertEquals("token", testSubject.getAccessToken("lion"));
+  }
+
+  @Test
+  public void shouldReadExpiryFromToken() {
+    final String claims = Base64.getUrlEncoder().withoutPadding()
+        .encodeToString("{\"sub\":\"homer\",\"exp\":1513555200}".getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertEquals(1513555200000L, AccessTokenCache.expiresAt("Bearer header." + claims + ".signature", 0, 60_000));
+    Assert.assertEquals(60_010L, AccessTokenCache.expiresAt("notAJwt", 10, 60_000));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.fineract.cn.rhythm.spi.v1.client.BeatListener;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * @author Myrle Krantz
+ */
+public class BeatListenerCacheTest {
+  private final Set<String> created = new HashSet<>();
+
+  private BeatListener create(final String homePageUrl) {
+    Assert.assertTrue("Client for " + homePageUrl + " created twice.", created.add(homePageUrl));
+    return Mockito.mock(BeatListener.class);
+  }
+
+  @Test
+  public void shouldReuseClientPerInstance() {
+    final BeatListenerCache testSubject = new BeatListenerCache(this::create, 10);
+
+    final BeatListener first = testSubject.get("http://a:2020/");
+    Assert.assertSame(first, testSubject.get("http://a:2020/"));
+    Assert.assertNotSame(first, testSubject.get("http://b:2020/"));
+    Assert.assertEquals(2, testSubject.size());
+  }
+
+  @Test
+  public void shouldDropLeastRecentlyUsedInstance() {
+    final BeatListenerCache testSubject = new BeatListenerCache(this::create, 2);
+
+    testSubject.get("http://a:2020/");
+    testSubject.get("http://b:2020/");
+    testSubject.get("http://a:2020/");
+    testSubject.get("http://c:2020/");
+
+    Assert.assertEquals(2, testSubject.size());
+    created.remove("http://b:2020/");
+    testSubject.get("http://b:2020/");
+  }
+
+  @Test
+  public void shouldDropDeregisteredInstances() {
+    final BeatListenerCache testSubject = new BeatListenerCache(this::create, 10);
+    testSubject.get("http://a:2020/");
+    testSubject.get("http://b:2020/");
+
+    testSubject.retainOnly(Collections.singleton("http://b:2020/"));
+
+    Assert.assertEquals(1, testSubject.size());
+    created.remove("http://a:2020/");
+    testSubject.get("http://a:2020/");
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class BeatListenerSelectorTest {
+  private static final List<String> INSTANCES = Arrays.asList("a", "b", "c");
+
+  private final BeatListenerSelector testSubject = new BeatListenerSelector(
+      2, 30_000, Clock.fixed(Instant.ofEpochMilli(1_000_000), ZoneOffset.UTC));
+
+  @Test
+  public void shouldTakeTurns() {
+    Assert.assertEquals(Arrays.asList("a", "b", "c"), testSubject.select("app", INSTANCES));
+    Assert.assertEquals(Arrays.asList("b", "c", "a"), testSubject.select("app", INSTANCES));
+    Assert.assertEquals(Arrays.asList("c", "a", "b"), testSubject.select("app", INSTANCES));
+    Assert.assertEquals(Arrays.asList("a", "b", "c"), testSubject.select("app", INSTANCES));
+  }
+
+  @Test
+  public void shouldPreferInstancesWithFewerPublishesInFlight() {
+    testSubject.started("a");
+    testSubject.started("a");
+    testSubject.started("b");
+
+    Assert.assertEquals(Arrays.asList("c", "b", "a"), testSubject.select("app", INSTANCES));
+
+    testSubject.succeeded("a");
+    testSubject.succeeded("a");
+    Assert.assertEquals(Arrays.asList("a", "c", "b"), testSubject.select("otherapp", INSTANCES));
+  }
+
+  @Test
+  public void shouldPutFailingInstanceLast() {
+    testSubject.started("a");
+    testSubject.failed("a");
+    Assert.assertEquals("a", testSubject.select("app", INSTANCES).get(0));
+
+    testSubject.started("a");
+    testSubject.failed("a");
+    for (int i = 0; i < INSTANCES.size(); i++)
+      Assert.assertEquals("a", testSubject.select("app", INSTANCES).get(2));
+
+    testSubject.started("a");
+    testSubject.succeeded("a");
+    Assert.assertEquals("a", testSubject.select("otherapp", INSTANCES).get(0));
+  }
+
+  @Test
+  public void shouldTryEjectedInstanceAgainAfterEjectionTime() {
+    final AtomicLong now = new AtomicLong(1_000_000);
+    final Clock clock = new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(final ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return Instant.ofEpochMilli(now.get());
+      }
+    };
+    final BeatListenerSelector testSubject = new BeatListenerSelector(1, 30_000, clock);
+
+    testSubject.started("a");
+    testSubject.failed("a");
+    Assert.assertEquals("a", testSubject.select("app", INSTANCES).get(2));
+
+    now.addAndGet(30_001);
+    Assert.assertEquals(Arrays.asList("b", "c", "a"), testSubject.select("app", INSTANCES));
+    Assert.assertEquals(Arrays.asList("c", "a", "b"), testSubject.select("app", INSTANCES));
+  }
+
+  @Test
+  public void shouldReturnEmptyForNoInstances() {
+    Assert.assertTrue(testSubject.select("app", Collections.emptyList()).isEmpty());
+  }
+}
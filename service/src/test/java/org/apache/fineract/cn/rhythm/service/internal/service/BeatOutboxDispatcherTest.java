@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxRepository;
+import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * @author Myrle Krantz
+ */
+public class BeatOutboxDispatcherTest {
+  private static final String TENANT = "lion";
+  private static final String APPLICATION = "roar-v1";
+  private static final String BEAT = "midnight";
+  private static final LocalDateTime FOR_TIME = LocalDateTime.of(2017, 12, 18, 0, 0);
+
+  private IdentityPermittableGroupService identityPermittableGroupServiceMock;
+  private BeatPublisherService beatPublisherServiceMock;
+  private BeatOutboxRepository beatOutboxRepositoryMock;
+  private BeatPublisherPool beatPublisherPool;
+  private BeatOutboxDispatcher testSubject;
+
+  @Before
+  public void prepare() {
+    final RhythmProperties properties = new RhythmProperties();
+    identityPermittableGroupServiceMock = Mockito.mock(IdentityPermittableGroupService.class);
+    beatPublisherServiceMock = Mockito.mock(BeatPublisherService.class);
+    beatOutboxRepositoryMock = Mockito.mock(BeatOutboxRepository.class);
+    beatPublisherPool = new BeatPublisherPool(properties);
+    Mockito.when(identityPermittableGroupServiceMock.checkThatApplicationHasRequestForAccessPermission(TENANT, APPLICATION))
+        .thenReturn(true);
+    testSubject = new BeatOutboxDispatcher(
+        identityPermittableGroupServiceMock,
+        beatPublisherServiceMock,
+        beatPublisherPool,
+        beatOutboxRepositoryMock,
+        new RecentlyPublished(properties),
+        properties,
+        Mockito.mock(PlatformTransactionManager.class),
+        Mockito.mock(Logger.class));
+  }
+
+  @After
+  public void cleanup() {
+    testSubject.stop();
+    beatPublisherPool.shutdown();
+  }
+
+  @Test
+  public void shouldStopPublishingBeatAtFirstFailure() {
+    final List<BeatOutboxEntry> entries = Arrays.asList(entry(1, 0), entry(2, 1), entry(3, 2));
+    Mockito.when(beatPublisherServiceMock.publishBeatAsync(
+        Matchers.eq(BEAT), Matchers.eq(TENANT), Matchers.eq(APPLICATION), Matchers.any(LocalDateTime.class),
+        Matchers.eq(BeatOutboxEntry.Kind.BEAT)))
+        .thenReturn(CompletableFuture.completedFuture(true), CompletableFuture.completedFuture(false));
+
+    testSubject.dispatch(entries);
+
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+    Mockito.verify(beatOutboxRepositoryMock).markSent(Matchers.anyCollectionOf(BeatOutboxEntry.class), Matchers.any(LocalDateTime.class));
+    Mockito.verify(beatPublisherServiceMock, Mockito.never()).publishBeatAsync(BEAT, TENANT, APPLICATION, FOR_TIME.plusDays(2), BeatOutboxEntry.Kind.BEAT);
+    Assert.assertEquals(BeatOutboxEntry.State.SENT, entries.get(0).getState());
+    Assert.assertEquals(BeatOutboxEntry.State.FAILED, entries.get(1).getState());
+    Assert.assertEquals(BeatOutboxEntry.State.FAILED, entries.get(2).getState());
+    Assert.assertEquals(1, entries.get(1).getConsecutiveFailures());
+    Assert.assertTrue(entries.get(1).getNextAttempt().isAfter(FOR_TIME));
+  }
+
+  @Test
+  public void shouldPublishEntriesOfApplicationInOneBatch() {
+    final List<BeatOutboxEntry> entries = Arrays.asList(entry(1, 1), entry(2, 0));
+    Mockito.when(beatPublisherServiceMock.acceptsBatches(APPLICATION)).thenReturn(true);
+    Mockito.when(beatPublisherServiceMock.publishBeatsAsync(
+        Matchers.eq(TENANT), Matchers.eq(APPLICATION), Matchers.anyListOf(BeatPublish.class)))
+        .thenReturn(CompletableFuture.completedFuture(Arrays.asList(true, true)));
+
+    testSubject.dispatch(entries);
+
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(1)).publishBeatsAsync(
+        Matchers.eq(TENANT), Matchers.eq(APPLICATION), Matchers.anyListOf(BeatPublish.class));
+    Mockito.verify(beatPublisherServiceMock, Mockito.never()).publishBeatAsync(
+        Matchers.anyString(), Matchers.anyString(), Matchers.anyString(), Matchers.any(LocalDateTime.class),
+        Matchers.any(BeatOutboxEntry.Kind.class));
+    entries.forEach(entry -> Assert.assertEquals(BeatOutboxEntry.State.SENT, entry.getState()));
+  }
+
+  @Test
+  public void shouldRetryOnlyEntriesOfFailedBatch() {
+    final List<BeatOutboxEntry> entries = Arrays.asList(entry(1, 1), entry(2, 0));
+    Mockito.when(beatPublisherServiceMock.acceptsBatches(APPLICATION)).thenReturn(true);
+    Mockito.when(beatPublisherServiceMock.publishBeatsAsync(
+        Matchers.eq(TENANT), Matchers.eq(APPLICATION), Matchers.anyListOf(BeatPublish.class)))
+        .thenReturn(CompletableFuture.completedFuture(Arrays.asList(true, false)));
+
+    testSubject.dispatch(entries);
+
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+    Assert.assertEquals(BeatOutboxEntry.State.SENT, entries.get(1).getState());
+    Assert.assertEquals(BeatOutboxEntry.State.FAILED, entries.get(0).getState());
+  }
+
+  @Test
+  public void shouldNotPublishBeatAgainWithinDeduplicationWindow() {
+    final BeatOutboxEntry published = entry(1, 0);
+    final BeatOutboxEntry duplicate = entry(2, 0);
+    Mockito.when(beatPublisherServiceMock.publishBeatAsync(BEAT, TENANT, APPLICATION, FOR_TIME, BeatOutboxEntry.Kind.BEAT))
+        .thenReturn(CompletableFuture.completedFuture(true));
+
+    testSubject.dispatch(Collections.singletonList(published));
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+    testSubject.dispatch(Collections.singletonList(duplicate));
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000).times(2)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(1)).publishBeatAsync(BEAT, TENANT, APPLICATION, FOR_TIME, BeatOutboxEntry.Kind.BEAT);
+    Assert.assertEquals(BeatOutboxEntry.State.SENT, duplicate.getState());
+  }
+
+  @Test
+  public void shouldNotPublishWithoutApplicationAccess() {
+    final List<BeatOutboxEntry> entries = Arrays.asList(entry(1, 0), entry(2, 1));
+    Mockito.when(identityPermittableGroupServiceMock.checkThatApplicationHasRequestForAccessPermission(TENANT, APPLICATION))
+        .thenReturn(false);
+
+    testSubject.dispatch(entries);
+
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+    Mockito.verify(beatPublisherServiceMock, Mockito.never()).publishBeatAsync(
+        Matchers.anyString(), Matchers.anyString(), Matchers.anyString(), Matchers.any(LocalDateTime.class),
+        Matchers.any(BeatOutboxEntry.Kind.class));
+    entries.forEach(entry -> {
+      Assert.assertEquals(BeatOutboxEntry.State.FAILED, entry.getState());
+      Assert.assertEquals("Application access needed to publish is not available.", entry.getLastError());
+    });
+  }
+
+  @Test
+  public void shouldGiveUpOnEntryAfterMaxAttempts() {
+    final BeatOutboxEntry entry = new BeatOutboxEntry(1L, TENANT, APPLICATION, BEAT, FOR_TIME, BeatOutboxEntry.State.FAILED,
+        FOR_TIME, new RhythmProperties().getOutboxMaxAttempts() - 1, BeatOutboxEntry.Kind.BEAT);
+    Mockito.when(beatPublisherServiceMock.publishBeatAsync(BEAT, TENANT, APPLICATION, FOR_TIME, BeatOutboxEntry.Kind.BEAT))
+        .thenReturn(CompletableFuture.completedFuture(false));
+
+    testSubject.dispatch(Collections.singletonList(entry));
+
+    Mockito.verify(beatOutboxRepositoryMock, Mockito.timeout(2_000)).markFailed(Matchers.anyCollectionOf(BeatOutboxEntry.class));
+    Assert.assertEquals(BeatOutboxEntry.State.DEAD, entry.getState());
+  }
+
+  private static BeatOutboxEntry entry(final long id, final int daysAfter) {
+    final LocalDateTime forTime = FOR_TIME.plusDays(daysAfter);
+    return new BeatOutboxEntry(id, TENANT, APPLICATION, BEAT, forTime, BeatOutboxEntry.State.PENDING, forTime, 0,
+        BeatOutboxEntry.Kind.BEAT);
+  }
+}
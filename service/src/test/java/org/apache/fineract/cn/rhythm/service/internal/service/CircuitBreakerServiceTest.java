@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.cn.rhythm.api.v1.domain.CircuitBreaker;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class CircuitBreakerServiceTest {
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private CircuitBreakerService testSubject;
+
+  @Before
+  public void prepare() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setCircuitBreakerFailureThreshold(3);
+    properties.setCircuitBreakerOpenTime(30_000L);
+    properties.setCircuitBreakerHalfOpenProbes(1);
+    testSubject = new CircuitBreakerService(properties, new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(final ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return Instant.ofEpochMilli(now.get());
+      }
+    });
+  }
+
+  @Test
+  public void shouldOpenAfterThresholdFailuresInARow() {
+    fail("app", 2);
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, state("app"));
+
+    Assert.assertTrue(testSubject.tryAcquire("app"));
+    testSubject.succeeded("app");
+    fail("app", 2);
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, state("app"));
+
+    fail("app", 1);
+    Assert.assertEquals(CircuitBreaker.State.OPEN, state("app"));
+    Assert.assertFalse(testSubject.tryAcquire("app"));
+    Assert.assertTrue(testSubject.tryAcquire("otherapp"));
+  }
+
+  @Test
+  public void shouldProbeOnceOpenTimeHasPassed() {
+    fail("app", 3);
+    now.addAndGet(30_000);
+
+    Assert.assertTrue(testSubject.tryAcquire("app"));
+    Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, state("app"));
+    Assert.assertFalse(testSubject.tryAcquire("app"));
+
+    testSubject.succeeded("app");
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, state("app"));
+    Assert.assertTrue(testSubject.tryAcquire("app"));
+  }
+
+  @Test
+  public void shouldOpenAgainIfProbeFails() {
+    fail("app", 3);
+    now.addAndGet(30_000);
+
+    Assert.assertTrue(testSubject.tryAcquire("app"));
+    testSubject.failed("app");
+
+    Assert.assertEquals(CircuitBreaker.State.OPEN, state("app"));
+    Assert.assertFalse(testSubject.tryAcquire("app"));
+  }
+
+  @Test
+  public void shouldFreeProbeIfReleased() {
+    fail("app", 3);
+    now.addAndGet(30_000);
+
+    Assert.assertTrue(testSubject.tryAcquire("app"));
+    testSubject.released("app");
+
+    Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, state("app"));
+    Assert.assertTrue(testSubject.tryAcquire("app"));
+  }
+
+  private void fail(final String applicationIdentifier, final int times) {
+    for (int i = 0; i < times; i++) {
+      Assert.assertTrue(testSubject.tryAcquire(applicationIdentifier));
+      testSubject.failed(applicationIdentifier);
+    }
+  }
+
+  private CircuitBreaker.State state(final String applicationIdentifier) {
+    final List<CircuitBreaker> circuitBreakers = testSubject.findAll();
+    return circuitBreakers.stream()
+        .filter(x -> x.getApplicationIdentifier().equals(applicationIdentifier))
+        .findFirst()
+        .map(CircuitBreaker::getState)
+        .orElse(CircuitBreaker.State.CLOSED);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetEntity;
+import org.apache.fineract.cn.rhythm.service.internal.repository.ClockOffsetRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+/**
+ * @author Myrle Krantz
+ */
+public class ClockOffsetServiceTest {
+  private ClockOffsetRepository clockOffsetRepositoryMock;
+  private RhythmProperties properties;
+
+  @Before
+  public void prepare() {
+    clockOffsetRepositoryMock = Mockito.mock(ClockOffsetRepository.class);
+    Mockito.when(clockOffsetRepositoryMock.findByTenantIdentifier("lion")).thenReturn(Optional.of(entity("lion", 5)));
+    Mockito.when(clockOffsetRepositoryMock.findByTenantIdentifier("tiger")).thenReturn(Optional.empty());
+    properties = new RhythmProperties();
+  }
+
+  @Test
+  public void shouldQueryOncePerTenant() {
+    final ClockOffsetService testSubject = new ClockOffsetService(clockOffsetRepositoryMock, properties);
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(new ClockOffset(5, 0, 0), testSubject.findByTenantIdentifier("lion"));
+      Assert.assertEquals(new ClockOffset(), testSubject.findByTenantIdentifier("tiger"));
+    }
+
+    Mockito.verify(clockOffsetRepositoryMock, Mockito.times(1)).findByTenantIdentifier("lion");
+    Mockito.verify(clockOffsetRepositoryMock, Mockito.times(1)).findByTenantIdentifier("tiger");
+  }
+
+  @Test
+  public void shouldReadUncachedTenantsInOneQuery() {
+    Mockito.when(clockOffsetRepositoryMock.findByTenantIdentifierIn(Matchers.anyCollection()))
+        .thenReturn(Collections.singletonList(entity("tiger", 3)));
+    final ClockOffsetService testSubject = new ClockOffsetService(clockOffsetRepositoryMock, properties);
+    testSubject.findByTenantIdentifier("lion");
+
+    final Map<String, ClockOffset> clockOffsets
+        = testSubject.findByTenantIdentifiers(Arrays.asList("lion", "tiger", "bear"));
+
+    Assert.assertEquals(new ClockOffset(5, 0, 0), clockOffsets.get("lion"));
+    Assert.assertEquals(new ClockOffset(3, 0, 0), clockOffsets.get("tiger"));
+    Assert.assertEquals(new ClockOffset(), clockOffsets.get("bear"));
+    Mockito.verify(clockOffsetRepositoryMock, Mockito.times(1)).findByTenantIdentifierIn(Arrays.asList("tiger", "bear"));
+
+    testSubject.findByTenantIdentifier("bear");
+    Mockito.verify(clockOffsetRepositoryMock, Mockito.never()).findByTenantIdentifier("bear");
+  }
+
+  @Test
+  public void shouldQueryAgainAfterEviction() {
+    final ClockOffsetService testSubject = new ClockOffsetService(clockOffsetRepositoryMock, properties);
+    testSubject.findByTenantIdentifier("lion");
+
+    Mockito.when(clockOffsetRepositoryMock.findByTenantIdentifier("lion")).thenReturn(Optional.of(entity("lion", 7)));
+    testSubject.evict("lion");
+
+    Assert.assertEquals(new ClockOffset(7, 0, 0), testSubject.findByTenantIdentifier("lion"));
+  }
+
+  @Test
+  public void shouldDropLeastRecentlyUsedTenant() {
+    properties.setClockOffsetCacheSize(1);
+    final ClockOffsetService testSubject = new ClockOffsetService(clockOffsetRepositoryMock, properties);
+
+    testSubject.findByTenantIdentifier("lion");
+    testSubject.findByTenantIdentifier("tiger");
+    testSubject.findByTenantIdentifier("lion");
+
+    Mockito.verify(clockOffsetRepositoryMock, Mockito.times(2)).findByTenantIdentifier("lion");
+  }
+
+  @Test
+  public void shouldNotCacheWithZeroExpiry() {
+    properties.setClockOffsetCacheExpiry(0L);
+    final ClockOffsetService testSubject = new ClockOffsetService(clockOffsetRepositoryMock, properties);
+
+    testSubject.findByTenantIdentifier("lion");
+    testSubject.findByTenantIdentifier("lion");
+
+    Mockito.verify(clockOffsetRepositoryMock, Mockito.times(2)).findByTenantIdentifier("lion");
+  }
+
+  private static ClockOffsetEntity entity(final String tenantIdentifier, final int hours) {
+    final ClockOffsetEntity ret = new ClockOffsetEntity();
+    ret.setTenantIdentifier(tenantIdentifier);
+    ret.setHours(hours);
+    ret.setMinutes(0);
+    ret.setSeconds(0);
+    return ret;
+  }
+}
@@ -18,21 +18,24 @@
  */
 package org.apache.fineract.cn.rhythm.service.internal.service;
 
+import org.apache.fineract.cn.rhythm.api.v1.domain.Beat;
 import org.apache.fineract.cn.rhythm.api.v1.domain.ClockOffset;
+import org.apache.fineract.cn.rhythm.service.internal.schedule.BeatSchedule;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
-import org.mockito.Mockito;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.Consumer;
 
 /**
  * @author Myrle Krantz
@@ -45,6 +48,8 @@ public class DrummerTest {
     LocalDateTime nextBeat = now.minusDays(1).truncatedTo(ChronoUnit.DAYS);
     int alignmentHour = 0;
     ClockOffset clockOffset = new ClockOffset();
+    int catchUpLimit = Integer.MAX_VALUE;
+    BeatSchedule schedule = null;
     LocalDateTime expectedIncrementedBeat = nextBeat.plusDays(1);
     LocalDateTime expectedNextBeatAfterPublish = now.plusDays(1).truncatedTo(ChronoUnit.DAYS);
     int expectedBeatPublishCount = 2;
@@ -73,6 +78,16 @@ public class DrummerTest {
       return this;
     }
 
+    TestCase catchUpLimit(final int newVal) {
+      this.catchUpLimit = newVal;
+      return this;
+    }
+
+    TestCase schedule(final Integer periodMinutes, final String cronExpression) {
+      this.schedule = BeatSchedule.of(alignmentHour, periodMinutes, cronExpression).orElseThrow(IllegalStateException::new);
+      return this;
+    }
+
     TestCase expectedIncrementedBeat(final LocalDateTime newVal) {
       this.expectedIncrementedBeat = newVal;
       return this;
@@ -125,6 +140,68 @@ public class DrummerTest {
         .expectedIncrementedBeat(LocalDateTime.of(2017, 12, 18, 20, 5, 2))
         .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 18, 20, 5, 2))
         .expectedBeatPublishCount(1));
+    ret.add(new TestCase("3daysBackLatestOnly")
+        .nextBeat(basicCase.now.minusDays(3))
+        .catchUpLimit(Drummer.catchUpLimit(Beat.CatchUpPolicy.FIRE_LATEST_ONLY.name(), null))
+        .expectedIncrementedBeat(basicCase.now.minusDays(2).truncatedTo(ChronoUnit.DAYS))
+        .expectedBeatPublishCount(1));
+    ret.add(new TestCase("3daysBackLastTwo")
+        .nextBeat(basicCase.now.minusDays(3))
+        .catchUpLimit(Drummer.catchUpLimit(Beat.CatchUpPolicy.FIRE_LAST_N.name(), 2))
+        .expectedIncrementedBeat(basicCase.now.minusDays(2).truncatedTo(ChronoUnit.DAYS))
+        .expectedBeatPublishCount(2));
+    ret.add(new TestCase("aYearBackLatestOnly")
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2016, 12, 18, 4, 0, 0))
+        .alignmentHour(4)
+        .catchUpLimit(1)
+        .expectedIncrementedBeat(LocalDateTime.of(2016, 12, 19, 4, 0, 0))
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 19, 4, 0, 0))
+        .expectedBeatPublishCount(1));
+    ret.add(new TestCase("lastNLargerThanMissed")
+        .nextBeat(basicCase.now.minusDays(3))
+        .catchUpLimit(10)
+        .expectedIncrementedBeat(basicCase.now.minusDays(2).truncatedTo(ChronoUnit.DAYS))
+        .expectedBeatPublishCount(4));
+    ret.add(new TestCase("periodFireAll")
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2017, 12, 18, 14, 0, 0))
+        .schedule(15, null)
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 18, 15, 15, 0))
+        .expectedBeatPublishCount(5));
+    ret.add(new TestCase("periodLastTwo")
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2017, 12, 18, 14, 0, 0))
+        .schedule(15, null)
+        .catchUpLimit(Drummer.catchUpLimit(Beat.CatchUpPolicy.FIRE_LAST_N.name(), 2))
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 18, 15, 15, 0))
+        .expectedBeatPublishCount(2));
+    ret.add(new TestCase("periodInFuture")
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2017, 12, 18, 15, 15, 0))
+        .schedule(15, null)
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 18, 15, 15, 0))
+        .expectedBeatPublishCount(0));
+    ret.add(new TestCase("periodFireAllIsCapped")
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2017, 12, 16, 15, 5, 0))
+        .schedule(1, null)
+        .catchUpLimit(Drummer.catchUpLimit(Beat.CatchUpPolicy.FIRE_ALL.name(), null))
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 18, 15, 6, 0))
+        .expectedBeatPublishCount(Drummer.SCHEDULED_CATCH_UP_LIMIT));
+    ret.add(new TestCase("cronFireAll") //2017-12-14 is a Thursday, and 2017-12-18 a Monday.
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2017, 12, 14, 9, 30, 0))
+        .schedule(null, "30 9 * * MON-FRI")
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 19, 9, 30, 0))
+        .expectedBeatPublishCount(3));
+    ret.add(new TestCase("cronLastTwo")
+        .now(LocalDateTime.of(2017, 12, 18, 15, 5, 2))
+        .nextBeat(LocalDateTime.of(2017, 12, 14, 9, 30, 0))
+        .schedule(null, "30 9 * * MON-FRI")
+        .catchUpLimit(Drummer.catchUpLimit(Beat.CatchUpPolicy.FIRE_LAST_N.name(), 2))
+        .expectedNextBeatAfterPublish(LocalDateTime.of(2017, 12, 19, 9, 30, 0))
+        .expectedBeatPublishCount(2));
     return ret;
   }
 
@@ -134,8 +211,30 @@ public class DrummerTest {
     this.testCase = testCase;
   }
 
+  //Beats with a schedule go through their own helper, but are expected to behave the same way.
+  private LocalDateTime checkForPublish(final Consumer<LocalDateTime> publish) {
+    if (testCase.schedule != null)
+      return Drummer.checkScheduledBeatForPublishHelper(
+          testCase.now,
+          testCase.nextBeat,
+          testCase.schedule,
+          testCase.clockOffset,
+          testCase.catchUpLimit,
+          publish);
+    return Drummer.checkBeatForPublishHelper(
+        testCase.now,
+        testCase.alignmentHour,
+        testCase.nextBeat,
+        testCase.clockOffset,
+        testCase.catchUpLimit,
+        publish);
+  }
+
   @Test
   public void incrementToAlignment() {
+    if (testCase.schedule != null)
+      return;
+
     final LocalDateTime incrementedBeat = Drummer.incrementToAlignment(
         testCase.nextBeat,
         testCase.alignmentHour,
@@ -151,15 +250,7 @@ public class DrummerTest {
   public void checkBeatForPublishHelper()
   {
     final Set<LocalDateTime> calledForTimes = new HashSet<>();
-    final LocalDateTime nextBeatAfterPublish = Drummer.checkBeatForPublishHelper(
-        testCase.now,
-        testCase.alignmentHour,
-        testCase.nextBeat,
-        testCase.clockOffset,
-        x -> {
-          calledForTimes.add(x);
-          return true;
-        });
+    final LocalDateTime nextBeatAfterPublish = checkForPublish(calledForTimes::add);
     Assert.assertEquals(
         "expectedNextBeatAfterPublish",
         testCase.expectedNextBeatAfterPublish,
@@ -172,37 +263,16 @@ public class DrummerTest {
   }
 
   @Test
-  public void checkBeatForPublishHelperFirstFails() {
-    @SuppressWarnings("unchecked")
-    final Predicate<LocalDateTime> produceBeatsMock = Mockito.mock(Predicate.class);
-    Mockito.when(produceBeatsMock.test(testCase.nextBeat)).thenReturn(false);
-    final LocalDateTime nextBeatAfterPublish = Drummer.checkBeatForPublishHelper(
-        testCase.now,
-        testCase.alignmentHour,
-        testCase.nextBeat,
-        testCase.clockOffset,
-        produceBeatsMock);
-    Assert.assertEquals("nextBeat", testCase.nextBeat, nextBeatAfterPublish);
-  }
-
-  @Test
-  public void checkBeatForPublishSecondFails() {
-    if (testCase.expectedBeatPublishCount < 2)
+  public void checkBeatForPublishHelperPublishesInOrder() {
+    if (testCase.expectedBeatPublishCount == 0)
       return;
 
-    final LocalDateTime secondBeat = Drummer.incrementToAlignment(
-        testCase.nextBeat,
-        testCase.alignmentHour,
-        testCase.clockOffset);
-    @SuppressWarnings("unchecked") final Predicate<LocalDateTime> produceBeatsMock = Mockito.mock(Predicate.class);
-    Mockito.when(produceBeatsMock.test(testCase.nextBeat)).thenReturn(true);
-    Mockito.when(produceBeatsMock.test(secondBeat)).thenReturn(false);
-    final LocalDateTime nextBeatAfterPublish = Drummer.checkBeatForPublishHelper(
-        testCase.now,
-        testCase.alignmentHour,
-        testCase.nextBeat,
-        testCase.clockOffset,
-        produceBeatsMock);
-    Assert.assertEquals(secondBeat, nextBeatAfterPublish);
+    final List<LocalDateTime> publishedBeats = new ArrayList<>();
+    final LocalDateTime nextBeatAfterPublish = checkForPublish(publishedBeats::add);
+    final List<LocalDateTime> sortedBeats = new ArrayList<>(publishedBeats);
+    sortedBeats.sort(Comparator.naturalOrder());
+    Assert.assertEquals("beats are published oldest first", sortedBeats, publishedBeats);
+    Assert.assertFalse("the latest missed beat is published", publishedBeats.get(publishedBeats.size() - 1).isAfter(testCase.now));
+    Assert.assertTrue(nextBeatAfterPublish.isAfter(publishedBeats.get(publishedBeats.size() - 1)));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.ApplicationEntity;
+import org.apache.fineract.cn.rhythm.service.internal.repository.ApplicationRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+/**
+ * @author Myrle Krantz
+ */
+public class IdentityPermittableGroupServiceTest {
+  private ApplicationRepository applicationRepositoryMock;
+  private BeatPublisherService beatPublisherServiceMock;
+  private RhythmProperties properties;
+  private IdentityPermittableGroupService testSubject;
+
+  @Before
+  public void prepare() {
+    applicationRepositoryMock = Mockito.mock(ApplicationRepository.class);
+    beatPublisherServiceMock = Mockito.mock(BeatPublisherService.class);
+    Mockito.when(applicationRepositoryMock.findByTenantIdentifierAndApplicationIdentifier(
+        Matchers.anyString(), Matchers.anyString())).thenReturn(Optional.empty());
+    Mockito.when(beatPublisherServiceMock.requestPermissionForBeats(Matchers.anyString(), Matchers.anyString()))
+        .thenReturn(Optional.of("group"));
+    properties = new RhythmProperties();
+    testSubject = new IdentityPermittableGroupService(
+        applicationRepositoryMock, beatPublisherServiceMock, properties, Mockito.mock(Logger.class));
+  }
+
+  @Test
+  public void shouldOnlyCheckFirstTime() {
+    for (int i = 0; i < 3; i++)
+      Assert.assertTrue(testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1"));
+
+    Mockito.verify(applicationRepositoryMock, Mockito.times(1))
+        .findByTenantIdentifierAndApplicationIdentifier("lion", "roar-v1");
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(1)).requestPermissionForBeats("lion", "roar-v1");
+  }
+
+  @Test
+  public void shouldCheckAgainIfPermissionWasNotGranted() {
+    Mockito.when(beatPublisherServiceMock.requestPermissionForBeats("lion", "roar-v1")).thenReturn(Optional.empty());
+
+    Assert.assertFalse(testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1"));
+    Assert.assertFalse(testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1"));
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(2)).requestPermissionForBeats("lion", "roar-v1");
+  }
+
+  @Test
+  public void shouldNotQueryForPrefetchedApplications() {
+    Mockito.when(applicationRepositoryMock.findByTenantIdentifierIn(Matchers.anyCollection())).thenReturn(Arrays.asList(
+        new ApplicationEntity("lion", "roar-v1", "group"),
+        new ApplicationEntity("tiger", "purr-v1", "group")));
+
+    testSubject.prefetch(Arrays.asList("lion", "tiger"));
+    testSubject.prefetch(Collections.singletonList("lion"));
+
+    Assert.assertTrue(testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1"));
+    Assert.assertTrue(testSubject.checkThatApplicationHasRequestForAccessPermission("tiger", "purr-v1"));
+    Mockito.verify(applicationRepositoryMock, Mockito.times(1)).findByTenantIdentifierIn(Matchers.anyCollection());
+    Mockito.verify(applicationRepositoryMock, Mockito.never())
+        .findByTenantIdentifierAndApplicationIdentifier(Matchers.anyString(), Matchers.anyString());
+  }
+
+  @Test
+  public void shouldCheckAgainAfterForgetting() {
+    testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1");
+    testSubject.forget("lion", "roar-v1");
+    testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1");
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(2)).requestPermissionForBeats("lion", "roar-v1");
+  }
+
+  @Test
+  public void shouldCheckAgainAfterExpiry() {
+    properties.setPermittedApplicationsCacheExpiry(0L);
+    testSubject = new IdentityPermittableGroupService(
+        applicationRepositoryMock, beatPublisherServiceMock, properties, Mockito.mock(Logger.class));
+
+    testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1");
+    testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1");
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(2)).requestPermissionForBeats("lion", "roar-v1");
+  }
+
+  @Test
+  public void shouldDropLeastRecentlyUsedTenant() {
+    properties.setPermittedApplicationsCacheSize(1);
+    testSubject = new IdentityPermittableGroupService(
+        applicationRepositoryMock, beatPublisherServiceMock, properties, Mockito.mock(Logger.class));
+
+    testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1");
+    testSubject.checkThatApplicationHasRequestForAccessPermission("tiger", "purr-v1");
+    testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1");
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(2)).requestPermissionForBeats("lion", "roar-v1");
+  }
+
+  @Test
+  public void shouldRequestPermissionOnceUnderConcurrentChecks() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Callable<Boolean>> checks = IntStream.range(0, 64)
+          .mapToObj(i -> (Callable<Boolean>) () ->
+              testSubject.checkThatApplicationHasRequestForAccessPermission("lion", "roar-v1"))
+          .collect(Collectors.toList());
+      for (final Future<Boolean> result : executor.invokeAll(checks))
+        Assert.assertTrue(result.get());
+    }
+    finally {
+      executor.shutdown();
+    }
+
+    Mockito.verify(beatPublisherServiceMock, Mockito.times(1)).requestPermissionForBeats("lion", "roar-v1");
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class PublishRateLimiterTest {
+  private final AtomicLong now = new AtomicLong(1_000_000);
+
+  @Test
+  public void unlimitedByDefault() {
+    final PublishRateLimiter testSubject = testSubject(new RhythmProperties());
+    for (int i = 0; i < 10_000; i++)
+      Assert.assertEquals(0, testSubject.reserve("app", 1));
+  }
+
+  @Test
+  public void globalLimitQueuesBeatsOverTheLimit() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setPublishRateLimit(10);
+    final PublishRateLimiter testSubject = testSubject(properties);
+
+    for (int i = 0; i < 10; i++)
+      Assert.assertEquals(0, testSubject.reserve("app" + i, 1));
+    Assert.assertEquals(100, testSubject.reserve("app", 1));
+    Assert.assertEquals(200, testSubject.reserve("otherapp", 1));
+
+    now.addAndGet(1_000);
+    Assert.assertEquals(0, testSubject.reserve("app", 1));
+    Assert.assertEquals(100, testSubject.reserve("app", 8));
+  }
+
+  @Test
+  public void applicationLimitOnlyAppliesToThatApplication() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.getPublishRateLimits().put("accounting", 2);
+    final PublishRateLimiter testSubject = testSubject(properties);
+
+    Assert.assertEquals(0, testSubject.reserve("accounting", 2));
+    Assert.assertEquals(500, testSubject.reserve("accounting", 1));
+    Assert.assertEquals(0, testSubject.reserve("portfolio", 100));
+
+    now.addAndGet(500);
+    Assert.assertEquals(500, testSubject.reserve("accounting", 1));
+  }
+
+  @Test
+  public void batchesCountEveryBeat() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setPublishRateLimit(100);
+    final PublishRateLimiter testSubject = testSubject(properties);
+
+    Assert.assertEquals(2_000, testSubject.reserve("app", 300));
+  }
+
+  @Test
+  public void beatsWhichWouldWaitLongerThanHalfTheLeaseAreRejected() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setPublishRateLimit(10);
+    properties.setOutboxLease(1_000L);
+    properties.getPublishRateLimits().put("app", 10);
+    final PublishRateLimiter testSubject = testSubject(properties);
+
+    Assert.assertEquals(0, testSubject.reserve("app", 10));
+    Assert.assertEquals(500, testSubject.reserve("otherapp", 5));
+    Assert.assertEquals(-1, testSubject.reserve("app", 1));
+    Assert.assertEquals(-1, testSubject.reserve("otherapp", 1));
+
+    //Rejected beats don't count against the limit.
+    now.addAndGet(1_000);
+    Assert.assertEquals(0, testSubject.reserve("app", 5));
+  }
+
+  @Test
+  public void throttledBeatsWaitInsteadOfFailing() throws Exception {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setPublishRateLimit(1_000);
+    final PublishRateLimiter testSubject = new PublishRateLimiter(properties, Runnable::run, Clock.systemUTC());
+    try {
+      Assert.assertTrue(testSubject.acquire("app", 1_000).isDone());
+      final CompletableFuture<Void> throttled = testSubject.acquire("app", 20);
+      throttled.get(1, TimeUnit.SECONDS);
+      Assert.assertTrue(testSubject.metrics().stream()
+          .anyMatch(metric -> metric.getName().equals("rhythm.throttle.throttled") && metric.getValue().longValue() == 1));
+    }
+    finally {
+      testSubject.stop();
+    }
+  }
+
+  private PublishRateLimiter testSubject(final RhythmProperties properties) {
+    return new PublishRateLimiter(properties, Runnable::run, new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(final ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return Instant.ofEpochMilli(now.get());
+      }
+    });
+  }
+}
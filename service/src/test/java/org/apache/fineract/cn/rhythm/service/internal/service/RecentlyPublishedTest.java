@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.cn.rhythm.service.config.RhythmProperties;
+import org.apache.fineract.cn.rhythm.service.internal.repository.BeatOutboxEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class RecentlyPublishedTest {
+  private static final long WINDOW = TimeUnit.HOURS.toMillis(1);
+  private static final LocalDateTime FOR_TIME = LocalDateTime.of(2017, 12, 18, 0, 0);
+  private static final BeatOutboxEntry.Kind BEAT = BeatOutboxEntry.Kind.BEAT;
+
+  private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(17_000));
+  private RecentlyPublished testSubject;
+
+  @Before
+  public void prepare() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setPublishDeduplicationWindow(WINDOW);
+    testSubject = new RecentlyPublished(properties, clock());
+  }
+
+  @Test
+  public void idempotencyKeyShouldOnlyDependOnBeatAndTime() {
+    Assert.assertEquals(
+        IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME),
+        IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME));
+    Assert.assertNotEquals(
+        IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME),
+        IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME.plusDays(1)));
+    Assert.assertNotEquals(
+        IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME),
+        IdempotencyKeys.of("tiger", "roar-v1", BEAT, "midnight", FOR_TIME));
+  }
+
+  @Test
+  public void idempotencyKeyOfTimerShouldDifferFromBeatWithSameIdentifier() {
+    Assert.assertNotEquals(
+        IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME),
+        IdempotencyKeys.of("lion", "roar-v1", BeatOutboxEntry.Kind.TIMER, "midnight", FOR_TIME));
+  }
+
+  @Test
+  public void shouldSuppressBeatPublishedWithinWindow() {
+    final UUID key = IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME);
+    Assert.assertFalse(testSubject.isDuplicate(key));
+
+    testSubject.add(key);
+    now.addAndGet(WINDOW - 1);
+
+    Assert.assertTrue(testSubject.isDuplicate(key));
+    Assert.assertFalse(testSubject.isDuplicate(IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME.plusDays(1))));
+  }
+
+  @Test
+  public void shouldForgetBeatOnceWindowHasPassed() {
+    final UUID key = IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME);
+    testSubject.add(key);
+
+    now.addAndGet(WINDOW + WINDOW / 4);
+
+    Assert.assertFalse(testSubject.isDuplicate(key));
+    testSubject.add(IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME.plusDays(1)));
+    Assert.assertEquals(1, testSubject.size());
+  }
+
+  @Test
+  public void shouldRememberManyBeats() {
+    for (int i = 0; i < 10_000; i++)
+      testSubject.add(IdempotencyKeys.of("lion", "roar-v1", BEAT, "beat" + i, FOR_TIME));
+
+    Assert.assertEquals(10_000, testSubject.size());
+    for (int i = 0; i < 10_000; i++)
+      Assert.assertTrue(testSubject.isDuplicate(IdempotencyKeys.of("lion", "roar-v1", BEAT, "beat" + i, FOR_TIME)));
+    Assert.assertFalse(testSubject.isDuplicate(IdempotencyKeys.of("lion", "roar-v1", BEAT, "beat" + 10_000, FOR_TIME)));
+  }
+
+  @Test
+  public void shouldNotSuppressAnythingIfWindowIsZero() {
+    final RhythmProperties properties = new RhythmProperties();
+    properties.setPublishDeduplicationWindow(0L);
+    final RecentlyPublished disabled = new RecentlyPublished(properties, clock());
+    final UUID key = IdempotencyKeys.of("lion", "roar-v1", BEAT, "midnight", FOR_TIME);
+
+    disabled.add(key);
+
+    Assert.assertFalse(disabled.isDuplicate(key));
+  }
+
+  private Clock clock() {
+    return new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(final ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return Instant.ofEpochMilli(now.get());
+      }
+    };
+  }
+}
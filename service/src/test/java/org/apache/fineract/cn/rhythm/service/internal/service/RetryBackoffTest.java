@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class RetryBackoffTest {
+  private static final long INITIAL = 1_000;
+  private static final long MAXIMUM = 600_000;
+
+  @Test
+  public void shouldDoubleWithEachFailure() {
+    Assert.assertEquals(500, RetryBackoff.delay(1, INITIAL, MAXIMUM, 0.0));
+    Assert.assertEquals(1_000, RetryBackoff.delay(2, INITIAL, MAXIMUM, 0.0));
+    Assert.assertEquals(2_000, RetryBackoff.delay(3, INITIAL, MAXIMUM, 0.0));
+    Assert.assertEquals(4_000, RetryBackoff.delay(4, INITIAL, MAXIMUM, 0.0));
+  }
+
+  @Test
+  public void shouldJitterWithinUpperHalf() {
+    Assert.assertEquals(1_500, RetryBackoff.delay(2, INITIAL, MAXIMUM, 0.5));
+    Assert.assertEquals(3_000, RetryBackoff.delay(3, INITIAL, MAXIMUM, 0.5));
+    Assert.assertTrue(RetryBackoff.delay(4, INITIAL, MAXIMUM, 0.999999) < 8_000);
+    Assert.assertTrue(RetryBackoff.delay(4, INITIAL, MAXIMUM, 0.999999) > 7_990);
+  }
+
+  @Test
+  public void shouldBeCapped() {
+    Assert.assertEquals(MAXIMUM / 2, RetryBackoff.delay(11, INITIAL, MAXIMUM, 0.0));
+    Assert.assertEquals(MAXIMUM / 2, RetryBackoff.delay(63, INITIAL, MAXIMUM, 0.0));
+    Assert.assertEquals(MAXIMUM / 2, RetryBackoff.delay(Integer.MAX_VALUE, INITIAL, MAXIMUM, 0.0));
+    Assert.assertTrue(RetryBackoff.delay(Integer.MAX_VALUE, INITIAL, MAXIMUM, 0.999999) < MAXIMUM);
+  }
+}
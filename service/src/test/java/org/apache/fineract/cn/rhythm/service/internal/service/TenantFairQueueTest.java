@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class TenantFairQueueTest {
+  //Entries are "<tenant><age>", and a smaller age means the entry has been due for longer.
+  private static TenantFairQueue<String> queue(final String weightedTenant, final int weight) {
+    return new TenantFairQueue<>(
+        x -> x.substring(0, 1),
+        Comparator.comparing(x -> Integer.valueOf(x.substring(1))),
+        x -> x.equals(weightedTenant) ? weight : 1);
+  }
+
+  @Test
+  public void shouldAlternateBetweenTenants() {
+    final TenantFairQueue<String> testSubject = queue("", 1);
+    testSubject.addAll(Arrays.asList("a1", "a2", "a3", "a4", "b1", "c1", "c2"));
+
+    Assert.assertEquals(
+        Arrays.asList("a1", "b1", "c1", "a2", "c2", "a3", "a4"),
+        testSubject.drain());
+    Assert.assertTrue(testSubject.isEmpty());
+  }
+
+  @Test
+  public void shouldTakeOldestFirstWithinTenant() {
+    final TenantFairQueue<String> testSubject = queue("", 1);
+    testSubject.addAll(Arrays.asList("a3", "a1", "a2"));
+
+    Assert.assertEquals(Arrays.asList("a1", "a2", "a3"), testSubject.drain());
+  }
+
+  @Test
+  public void shouldGiveWeightedTenantMoreTurns() {
+    final TenantFairQueue<String> testSubject = queue("a", 2);
+    testSubject.addAll(Arrays.asList("a1", "a2", "a3", "a4", "a5", "b1", "b2", "b3"));
+
+    Assert.assertEquals(
+        Arrays.asList("a1", "a2", "b1", "a3", "a4", "b2", "a5", "b3"),
+        testSubject.drain());
+  }
+
+  @Test
+  public void shouldReturnNullWhenEmpty() {
+    final TenantFairQueue<String> testSubject = queue("", 1);
+    Assert.assertNull(testSubject.poll());
+
+    testSubject.add("a1");
+    Assert.assertEquals(1, testSubject.size());
+    Assert.assertEquals("a1", testSubject.poll());
+    Assert.assertNull(testSubject.poll());
+  }
+}
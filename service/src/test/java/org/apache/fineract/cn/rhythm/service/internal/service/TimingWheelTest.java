@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.rhythm.service.internal.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Myrle Krantz
+ */
+public class TimingWheelTest {
+  private static final long START = TimeUnit.DAYS.toMillis(17_000);
+  private static final long SECOND = TimeUnit.SECONDS.toMillis(1);
+
+  private final TimingWheel<String> testSubject = new TimingWheel<>(SECOND, START, 60, 60, 24);
+
+  @Test
+  public void shouldExpireOnlyOnceDue() {
+    testSubject.schedule("a", START + 5 * SECOND);
+
+    Assert.assertTrue(testSubject.advance(START + 4 * SECOND).isEmpty());
+    Assert.assertEquals(Collections.singletonList("a"), testSubject.advance(START + 5 * SECOND));
+    Assert.assertFalse(testSubject.contains("a"));
+  }
+
+  @Test
+  public void shouldExpirePastDeadlinesOnNextAdvance() {
+    testSubject.schedule("a", START - TimeUnit.DAYS.toMillis(3));
+
+    Assert.assertEquals(Collections.singletonList("a"), testSubject.advance(START));
+  }
+
+  @Test
+  public void shouldCascadeThroughEveryLevel() {
+    final long[] deadlines = {
+        START + 59 * SECOND,
+        START + TimeUnit.MINUTES.toMillis(61) + 7 * SECOND,
+        START + TimeUnit.HOURS.toMillis(23) + 3 * SECOND,
+        START + TimeUnit.DAYS.toMillis(9) + 11 * SECOND};
+    for (int i = 0; i < deadlines.length; i++)
+      testSubject.schedule(String.valueOf(i), deadlines[i]);
+
+    for (int i = 0; i < deadlines.length; i++) {
+      Assert.assertTrue(String.valueOf(i), testSubject.advance(deadlines[i] - SECOND).isEmpty());
+      final List<String> expired = testSubject.advance(deadlines[i]);
+      Assert.assertEquals(Collections.singletonList(String.valueOf(i)), expired);
+    }
+    Assert.assertEquals(0, testSubject.size());
+  }
+
+  @Test
+  public void shouldMoveRescheduledKey() {
+    testSubject.schedule("a", START + 5 * SECOND);
+    testSubject.schedule("a", START + TimeUnit.HOURS.toMillis(2));
+
+    Assert.assertTrue(testSubject.advance(START + TimeUnit.HOURS.toMillis(1)).isEmpty());
+    Assert.assertEquals(Collections.singletonList("a"), testSubject.advance(START + TimeUnit.HOURS.toMillis(2)));
+  }
+
+  @Test
+  public void shouldNotExpireCancelledKey() {
+    testSubject.schedule("a", START + 5 * SECOND);
+    testSubject.schedule("b", START + 5 * SECOND);
+    Assert.assertTrue(testSubject.cancel("a"));
+    testSubject.cancelIf("b"::equals);
+
+    Assert.assertTrue(testSubject.advance(START + 10 * SECOND).isEmpty());
+    Assert.assertEquals(0, testSubject.size());
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.fineract.cn.rhythm.spi.v1.client;
 
+import java.util.List;
 import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
 import org.springframework.cloud.netflix.feign.FeignClient;
 import org.springframework.http.MediaType;
@@ -31,6 +32,14 @@ import org.springframework.web.bind.annotation.RequestMethod;
 @FeignClient
 public interface BeatListener {
   String PUBLISH_BEAT_PATH = "/beatlistener/v1/publishedbeats";
+  String PUBLISH_BEATS_PATH = "/beatlistener/v1/publishedbeats/batch";
+
+  /**
+   * Listeners which implement publishBeats advertise it by setting this key to "true" in the metadata of their
+   * Eureka instances, for example with eureka.instance.metadataMap.rhythm-publishedbeats-batch=true.  Rhythm sends
+   * single publishes to listeners which don't.
+   */
+  String PUBLISH_BEATS_METADATA_KEY = "rhythm-publishedbeats-batch";
 
   @RequestMapping(
           value = PUBLISH_BEAT_PATH,
@@ -39,4 +48,16 @@ public interface BeatListener {
           consumes = MediaType.APPLICATION_JSON_VALUE
   )
   void publishBeat(final BeatPublish beatPublish);
+
+  /**
+   * Several beats for the tenant given in the tenant header, all of which should be treated as published if the request
+   * succeeds.
+   */
+  @RequestMapping(
+          value = PUBLISH_BEATS_PATH,
+          method = RequestMethod.POST,
+          produces = MediaType.APPLICATION_JSON_VALUE,
+          consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  void publishBeats(final List<BeatPublish> beatPublishes);
 }
@@ -28,6 +28,15 @@ import org.apache.fineract.cn.lang.validation.constraints.ValidLocalDateTimeStri
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class BeatPublish {
+  /**
+   * Whether a beat or a timer is being published.  A beat and a timer of one application may have the same
+   * identifier.
+   */
+  public enum Kind {
+    BEAT,
+    TIMER
+  }
+
   @ValidIdentifier
   private String identifier;
 
@@ -35,6 +44,13 @@ public class BeatPublish {
   @ValidLocalDateTimeString
   private String forTime;
 
+  //The same for every publish of this beat at this time, so that listeners can recognize a beat they have already
+  //received.  Null from versions of rhythm which didn't send one.
+  private String idempotencyKey;
+
+  //Null from versions of rhythm which didn't send one, which only published beats.
+  private Kind kind;
+
   public BeatPublish() {
   }
 
@@ -43,6 +59,19 @@ public class BeatPublish {
     this.forTime = forTime;
   }
 
+  public BeatPublish(String identifier, String forTime, String idempotencyKey) {
+    this.identifier = identifier;
+    this.forTime = forTime;
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public BeatPublish(String identifier, String forTime, String idempotencyKey, Kind kind) {
+    this.identifier = identifier;
+    this.forTime = forTime;
+    this.idempotencyKey = idempotencyKey;
+    this.kind = kind;
+  }
+
   public String getIdentifier() {
     return identifier;
   }
@@ -59,18 +88,36 @@ public class BeatPublish {
     this.forTime = forTime;
   }
 
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public void setKind(Kind kind) {
+    this.kind = kind;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     BeatPublish beatPublish = (BeatPublish) o;
     return Objects.equals(identifier, beatPublish.identifier) &&
-            Objects.equals(forTime, beatPublish.forTime);
+            Objects.equals(forTime, beatPublish.forTime) &&
+            Objects.equals(idempotencyKey, beatPublish.idempotencyKey) &&
+            kind == beatPublish.kind;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(identifier, forTime);
+    return Objects.hash(identifier, forTime, idempotencyKey, kind);
   }
 
   @Override
@@ -78,6 +125,8 @@ public class BeatPublish {
     return "BeatPublish{" +
             "identifier='" + identifier + '\'' +
             ", forTime='" + forTime + '\'' +
+            ", idempotencyKey='" + idempotencyKey + '\'' +
+            ", kind=" + kind +
             '}';
   }
 }
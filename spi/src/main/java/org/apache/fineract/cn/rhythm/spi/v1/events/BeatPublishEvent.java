@@ -19,6 +19,7 @@
 package org.apache.fineract.cn.rhythm.spi.v1.events;
 
 import java.util.Objects;
+import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
 
 /**
  * @author Myrle Krantz
@@ -28,6 +29,9 @@ public class BeatPublishEvent {
   String applicationIdentifier;
   String beatIdentifier;
   String forTime;
+  String idempotencyKey;
+  //Null from versions of rhythm which didn't send one, which only published beats.
+  BeatPublish.Kind kind;
 
   public BeatPublishEvent() {
   }
@@ -38,6 +42,22 @@ public class BeatPublishEvent {
     this.forTime = forTime;
   }
 
+  public BeatPublishEvent(String applicationIdentifier, String beatIdentifier, String forTime, String idempotencyKey) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.beatIdentifier = beatIdentifier;
+    this.forTime = forTime;
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public BeatPublishEvent(
+      String applicationIdentifier, String beatIdentifier, String forTime, String idempotencyKey, BeatPublish.Kind kind) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.beatIdentifier = beatIdentifier;
+    this.forTime = forTime;
+    this.idempotencyKey = idempotencyKey;
+    this.kind = kind;
+  }
+
   public String getApplicationIdentifier() {
     return applicationIdentifier;
   }
@@ -62,6 +82,22 @@ public class BeatPublishEvent {
     this.forTime = forTime;
   }
 
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public BeatPublish.Kind getKind() {
+    return kind;
+  }
+
+  public void setKind(BeatPublish.Kind kind) {
+    this.kind = kind;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -69,12 +105,14 @@ public class BeatPublishEvent {
     BeatPublishEvent that = (BeatPublishEvent) o;
     return Objects.equals(applicationIdentifier, that.applicationIdentifier) &&
             Objects.equals(beatIdentifier, that.beatIdentifier) &&
-            Objects.equals(forTime, that.forTime);
+            Objects.equals(forTime, that.forTime) &&
+            Objects.equals(idempotencyKey, that.idempotencyKey) &&
+            kind == that.kind;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(applicationIdentifier, beatIdentifier, forTime);
+    return Objects.hash(applicationIdentifier, beatIdentifier, forTime, idempotencyKey, kind);
   }
 
   @Override
@@ -83,6 +121,8 @@ public class BeatPublishEvent {
             "applicationIdentifier='" + applicationIdentifier + '\'' +
             ", beatIdentifier='" + beatIdentifier + '\'' +
             ", forTime='" + forTime + '\'' +
+            ", idempotencyKey='" + idempotencyKey + '\'' +
+            ", kind=" + kind +
             '}';
   }
 }
@@ -26,4 +26,13 @@ public interface EventConstants {
   String SELECTOR_NAME = "action";
   String POST_PUBLISHEDBEAT = "post-publishedbeat";
   String SELECTOR_POST_PUBLISHEDBEAT = SELECTOR_NAME + " = '" + POST_PUBLISHEDBEAT + "'";
+  //Every published beat message names the application it is for in this property.
+  String APPLICATION_IDENTIFIER_PROPERTY = "applicationIdentifier";
+
+  /**
+   * @return the selector with which an application receives only its own published beats.
+   */
+  static String selectorPostPublishedBeat(final String applicationIdentifier) {
+    return SELECTOR_POST_PUBLISHEDBEAT + " AND " + APPLICATION_IDENTIFIER_PROPERTY + " = '" + applicationIdentifier + "'";
+  }
 }
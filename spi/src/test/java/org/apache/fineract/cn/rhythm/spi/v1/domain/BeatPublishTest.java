@@ -53,6 +53,12 @@ public class BeatPublishTest extends ValidationTest<BeatPublish> {
     ret.add(new ValidationTestCase<BeatPublish>("non time")
         .adjustment(x -> x.setForTime("this is not a time"))
         .valid(false));
+    ret.add(new ValidationTestCase<BeatPublish>("timer")
+        .adjustment(x -> x.setKind(BeatPublish.Kind.TIMER))
+        .valid(true));
+    ret.add(new ValidationTestCase<BeatPublish>("null kind from an older rhythm")
+        .adjustment(x -> x.setKind(null))
+        .valid(true));
     ret.add(new ValidationTestCase<BeatPublish>("null identifier")
         .adjustment(x -> x.setIdentifier(null))
         .valid(false));